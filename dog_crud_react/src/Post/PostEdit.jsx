@@ -62,7 +62,9 @@ function PostEdit() {
                     method: 'PUT',
                     headers:
                     {
-                        'Content-Type': 'application/json'
+                        'Content-Type': 'application/json',
+                        // 編集を始めたときのバージョンを送り、その後に他の更新が反映されていれば更新させない（上書きを防ぐ）
+                        'If-Match': `"${id}-${post.version}"`,
                     },
                     body: JSON.stringify(post),
 
@@ -86,6 +88,10 @@ function PostEdit() {
                     // →更新できないユーザーが編集ページを開いている。一覧画面に遷移する。
                     alert(MESSAGES.NO_PERMISSION);
                     navigate(ROUTES.POST_INDEX);
+                } else if (response.status === HTTP_STATUS_CODES.PRECONDITION_FAILED) {
+                    // 編集中に他の操作で投稿が更新された。最新の内容を読み込み直す
+                    alert(MESSAGES.POST_UPDATE_CONFLICT);
+                    window.location.reload();
                 } else if (response.status === HTTP_STATUS_CODES.BAD_REQUEST) {
                     // バリデーションエラーが発生した
                     await showValidatedMessage(response);
@@ -14,22 +14,27 @@ import { useDeletePost } from '../hooks/DeletePost';
 function PostIndex() {
     const { userInfo, isAuthenticated } = useUser();
     const [posts, setPosts] = useState([]);
+    const [nextCursor, setNextCursor] = useState(null);
     const createErrorFromResponse = useCreateErrorFromResponse();
     const showErrorMessage = useShowErrorMessage();
 
     /**
-     * 投稿一覧をAPI経由で取得してStateに格納する関数
+     * 投稿一覧をAPI経由で1ページ分取得してStateに格納する関数
      * fetchの成功可否をチェックし、失敗時にはエラーを通知する
+     *
+     * @param {string|null} cursor 前のページで返却されたカーソル（先頭ページの場合はnull）
      */
-    const getPosts = useCallback(async () => {
+    const getPosts = useCallback(async (cursor = null) => {
         try {
-            // セッションに紐づいたユーザー情報を取得するAPIを呼び出す
-            const res = await fetch(`${APIS.POST_ALL}`);
+            // 投稿一覧（フィード）を1ページ分、コンパクト形式で取得するAPIを呼び出す
+            const res = await fetch(`${APIS.POST_FEED_COMPACT(cursor)}`);
 
             if (res.ok) {
-                // 投稿一覧データ（JSON）を取得して状態にセット
-                const resultPosts = await res.json();
-                setPosts(resultPosts);
+                // 投稿一覧データ（JSON）を取得し、年齢の値を辞書から補って状態にセット（2ページ目以降は末尾に追加する）
+                const resultPage = await res.json();
+                const pagePosts = resultPage.posts.map(post => ({ ...post, ageValue: resultPage.ages[post.ageId] }));
+                setPosts(prev => cursor ? [...prev, ...pagePosts] : pagePosts);
+                setNextCursor(resultPage.nextCursor);
             } else {
                 // 想定外のステータスコード（4xx/5xxなど）
                 throw await createErrorFromResponse(res);
@@ -38,8 +43,11 @@ function PostIndex() {
             // ネットワークエラーまたはthrowされたErrorをキャッチ
             showErrorMessage(error, MESSAGES.POST_GET_FAILED);
 
-            // 投稿を空にする
-            setPosts([]);
+            // 先頭ページの取得に失敗した場合は投稿を空にする
+            if (!cursor) {
+                setPosts([]);
+                setNextCursor(null);
+            }
         }
     }, [createErrorFromResponse, showErrorMessage]);
 
@@ -51,6 +59,28 @@ function PostIndex() {
         getPosts();
     }, [getPosts]);
 
+    // 投稿の作成、更新、削除をServer-Sent Eventsで受け取り、投稿一覧を取得し直さずに反映する
+    // ※切断された場合はブラウザが自動で再接続し、切断中の変更を受け取る（受け取れない場合はresetイベントで取得し直す）
+    useEffect(() => {
+        const eventSource = new EventSource(APIS.POST_STREAM);
+        eventSource.addEventListener('post-created', event => {
+            const post = JSON.parse(event.data);
+            setPosts(prev => prev.some(p => p.id === post.id) ? prev : [post, ...prev]);
+        });
+        eventSource.addEventListener('post-updated', event => {
+            const post = JSON.parse(event.data);
+            setPosts(prev => prev.map(p => p.id === post.id ? post : p));
+        });
+        eventSource.addEventListener('post-deleted', event => {
+            const { id } = JSON.parse(event.data);
+            setPosts(prev => prev.filter(p => p.id !== id));
+        });
+        eventSource.addEventListener('reset', () => {
+            getPosts();
+        });
+        return () => eventSource.close();
+    }, [getPosts]);
+
     return (
         <Container sx={{ maxWidth: COMMON_STYLE.BODY_CONTAINER_MAX_WIDTH, m: 'auto', mb: '30px' }}>
             <Button
@@ -88,7 +118,7 @@ function PostIndex() {
                                     <Typography variant="body2">{post.ageValue}</Typography>
                                     <CardMedia
                                         component="img"
-                                        src={post.imageUrl}
+                                        src={post.thumbnailUrl ?? post.imageUrl}
                                         alt="犬の画像"
                                         sx={{
                                             width: '250px'
@@ -129,6 +159,12 @@ function PostIndex() {
                             </Card>
                         );
                     })}
+                    {/* 次のページが存在する場合のみ、続きを読み込むボタンを表示する */}
+                    {nextCursor && (
+                        <Button variant="outlined" onClick={() => { getPosts(nextCursor); }}>
+                            もっと見る
+                        </Button>
+                    )}
                 </>
             )}
         </Container>
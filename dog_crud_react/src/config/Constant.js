@@ -67,6 +67,7 @@ export const MESSAGES = {
     POST_CREATE_FAILED: '投稿の作成に失敗しました',
     POST_UPDATE_SUCCESSED: '投稿を更新しました',
     POST_UPDATE_FAILED: '投稿の更新に失敗しました',
+    POST_UPDATE_CONFLICT: '編集中に他の操作で投稿が更新されました。最新の内容を読み込み直します',
     
     POST_GET_FAILED: '投稿の取得に失敗しました',
     POST_NOT_FOUND: "投稿が見つかりません（削除された可能性があります）",
@@ -96,6 +97,9 @@ export const APIS={
 
     // 投稿関係
     POST_ALL : `${API_BASE_URL}/api/posts/all`,
+    POST_FEED : (cursor = null) => `${API_BASE_URL}/api/posts/feed${cursor ? `?cursor=${encodeURIComponent(cursor)}` : ''}`,
+    POST_FEED_COMPACT : (cursor = null) => `${API_BASE_URL}/api/posts/feed/compact${cursor ? `?cursor=${encodeURIComponent(cursor)}` : ''}`,
+    POST_STREAM : `${API_BASE_URL}/api/posts/stream`,
     POST_CREATE : `${API_BASE_URL}/api/posts`,
     POST_EDIT : (id = ':id') => `${API_BASE_URL}/api/posts/${id}`,
     POST_GET_BY_ID : (id = ':id') => `${API_BASE_URL}/api/posts/${id}`,
@@ -112,6 +116,7 @@ export const HTTP_STATUS_CODES = {
     UNAUTHORIZED: 401,
     FORBIDDEN: 403,
     NOT_FOUND: 404,
+    PRECONDITION_FAILED: 412,
 }
 
 // スタイル（各画面で共通のもの）
@@ -0,0 +1,53 @@
+package com.example.dog_crud_spring_boot.dto;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * 投稿一覧（{@code List<PostResponseDto>}）をJSONに変換する処理時間を計測するベンチマーク
+ * ※ObjectMapperはアプリケーションと同じくSpringのビルダーで生成する（日時の変換方法などを合わせるため）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PostResponseDtoSerializationBenchmark {
+
+    /** 1回に変換する投稿の件数（フィードの1ページ分〜上限） */
+    @Param({ "20", "100", "1000" })
+    public int size;
+
+    private ObjectMapper objectMapper;
+    private List<PostResponseDto> posts;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        LocalDateTime now = LocalDateTime.now();
+        posts = LongStream.range(0, size)
+                .mapToObj(i -> new PostResponseDto(i, i % 50, "user" + (i % 50) + "@example.com", "ユーザー" + (i % 50),
+                        "タイトル" + i, "ベンチマーク用の投稿の内容です" + i, (i % 3) + 1, "成犬",
+                        "https://images.dog.ceo/breeds/shiba/shiba-" + i + ".jpg", now, now, null, 0L))
+                .toList();
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(posts);
+    }
+}
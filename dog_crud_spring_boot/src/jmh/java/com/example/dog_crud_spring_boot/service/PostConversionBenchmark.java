@@ -0,0 +1,51 @@
+package com.example.dog_crud_spring_boot.service;
+
+import com.example.dog_crud_spring_boot.dto.PostResponseDto;
+import com.example.dog_crud_spring_boot.model.Age;
+import com.example.dog_crud_spring_boot.model.Post;
+import com.example.dog_crud_spring_boot.model.User;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link PostService#convertPostToPostResponseDto(Post)} の処理時間を計測するベンチマーク
+ * ※DBにはアクセスせず、エンティティからDTOへの変換のみを計測する
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PostConversionBenchmark {
+
+    private PostService postService;
+    private Post post;
+
+    @Setup
+    public void setUp() {
+        // 変換処理はリポジトリやキャッシュを使用しないため、依存するBeanはnullでよい
+        postService = new PostService(null, null, null, null, null, null, 20, 100);
+
+        User user = new User();
+        user.setUserName("ベンチマーク");
+        user.setEmail("benchmark@example.com");
+
+        post = new Post();
+        post.setTitle("タイトル");
+        post.setContent("ベンチマーク用の投稿の内容です");
+        post.setImageUrl("https://images.dog.ceo/breeds/shiba/shiba-1.jpg");
+        post.setUser(user);
+        post.setAge(new Age("成犬", 2L));
+    }
+
+    @Benchmark
+    public PostResponseDto convertPostToPostResponseDto() {
+        return postService.convertPostToPostResponseDto(post);
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.dog_crud_spring_boot.service;
+
+import com.example.dog_crud_spring_boot.DogCrudApplication;
+import com.example.dog_crud_spring_boot.dto.PostBulkResponseDto;
+import com.example.dog_crud_spring_boot.dto.PostRequestDto;
+import com.example.dog_crud_spring_boot.dto.PostResponseDto;
+import com.example.dog_crud_spring_boot.model.User;
+import com.example.dog_crud_spring_boot.repository.UserRepository;
+import com.example.dog_crud_spring_boot.security.LoginUser;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+import java.nio.file.AccessDeniedException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link PostService#createPost} と {@link PostService#updatePost}、{@link PostBulkService#createPosts} の処理時間を計測するベンチマーク
+ * MySQLの代わりに組み込みデータベース（H2のMySQL互換モード）を使用し、アプリケーション全体を起動して計測する。
+ * ※SQLの実行計画やネットワークの遅延はMySQLと異なるため、絶対値ではなく変更前後の比較に使用すること
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PostServiceWriteBenchmark {
+
+    /** 一括作成で1回に作成する投稿の数 */
+    private static final int BULK_SIZE = 100;
+
+    private ConfigurableApplicationContext context;
+    private PostService postService;
+    private PostBulkService postBulkService;
+    private Authentication authentication;
+    private PostRequestDto request;
+    private List<PostRequestDto> bulkRequests;
+    private Long postId;
+
+    @Setup
+    public void setUp() throws Exception {
+        context = new SpringApplicationBuilder(DogCrudApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:benchmark;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                        "spring.datasource.driver-class-name=org.h2.Driver",
+                        "spring.datasource.username=sa",
+                        "spring.datasource.password=",
+                        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "spring.jpa.show-sql=false",
+                        "logging.level.root=WARN")
+                .run();
+        postService = context.getBean(PostService.class);
+        postBulkService = context.getBean(PostBulkService.class);
+
+        // 投稿者となるユーザーを登録し、ログイン済みの状態を作る
+        User user = new User();
+        user.setUserName("ベンチマーク");
+        user.setEmail("benchmark@example.com");
+        user.setPassword("{noop}benchmark");
+        user = context.getBean(UserRepository.class).save(user);
+        LoginUser loginUser = LoginUser.from(user);
+        authentication = UsernamePasswordAuthenticationToken.authenticated(loginUser, null,
+                loginUser.getAuthorities());
+
+        request = new PostRequestDto();
+        request.setTitle("タイトル");
+        request.setContent("ベンチマーク用の投稿の内容です");
+        request.setAgeId(1L);
+        request.setImageUrl("https://images.dog.ceo/breeds/shiba/shiba-1.jpg");
+
+        bulkRequests = Collections.nCopies(BULK_SIZE, request);
+
+        postId = postService.createPost(request, authentication).getId();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public PostResponseDto createPost() {
+        return postService.createPost(request, authentication);
+    }
+
+    /**
+     * 一括作成（結果は投稿1件あたりの時間。createPostと比較する）
+     */
+    @Benchmark
+    @OperationsPerInvocation(BULK_SIZE)
+    public PostBulkResponseDto createPostsBulk() {
+        return postBulkService.createPosts(bulkRequests, authentication);
+    }
+
+    @Benchmark
+    public PostResponseDto updatePost() throws AccessDeniedException {
+        return postService.updatePost(postId, request, null, authentication);
+    }
+}
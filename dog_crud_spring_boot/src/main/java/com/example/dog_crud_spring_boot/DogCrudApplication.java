@@ -2,8 +2,10 @@ package com.example.dog_crud_spring_boot;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling // 論理削除された投稿の物理削除などを定期的に実行する
 public class DogCrudApplication {
 
     public static void main(String[] args) {
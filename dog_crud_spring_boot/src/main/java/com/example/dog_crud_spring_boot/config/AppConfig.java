@@ -1,10 +1,18 @@
 package com.example.dog_crud_spring_boot.config;
 
+import com.example.dog_crud_spring_boot.security.OffloadingPasswordEncoder;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.util.Map;
+
 /**
  * アプリケーション全体で使用する共通のBean定義を行う設定クラス
  * 主にセキュリティ関連（パスワードの暗号化設定）を構成する
@@ -12,15 +20,36 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 @Configuration // このクラスが設定クラスであることをSpringに伝えるアノテーション
 public class AppConfig {
 
+    /** パスワードのハッシュに付与する、ハッシュ化の方式を表すID */
+    private static final String ENCODING_ID_BCRYPT = "bcrypt";
+
     /**
      * パスワードの暗号化に使用するエンコーダーをBeanとして定義する
      * Spring Securityがユーザー認証時に自動で使用するようになる
+     * ※ハッシュには方式のID（{bcrypt}）を付与する。IDのない既存のハッシュはBCryptとして照合し、
+     * ログイン成功時に現在の設定（強度）でハッシュ化し直される
      *
+     * @param strength      BCryptの強度（大きいほど安全だが、ハッシュ化に時間がかかる）
+     * @param threads       ハッシュ化を行うスレッド数
+     * @param queueCapacity ハッシュ化の待ち行列の上限
+     * @param meterRegistry ハッシュ化の処理時間などを記録するレジストリ
      * @return BCryptアルゴリズムを使用したパスワードエンコーダー
      */
     @Bean // このメソッドの戻り値をSpringコンテナに登録し、他の場所で使えるようにする
-    public PasswordEncoder passwordEncoder() {
+    public OffloadingPasswordEncoder passwordEncoder(
+            @Value("${app.security.password.bcrypt-strength}") int strength,
+            @Value("${app.security.password.hashing-threads}") int threads,
+            @Value("${app.security.password.hashing-queue-capacity}") int queueCapacity,
+            MeterRegistry meterRegistry) {
         // パスワードをハッシュ化するエンコーダーを生成する
-        return new BCryptPasswordEncoder();
+        BCryptPasswordEncoder bCryptPasswordEncoder = new BCryptPasswordEncoder(strength);
+        DelegatingPasswordEncoder delegatingPasswordEncoder = new DelegatingPasswordEncoder(ENCODING_ID_BCRYPT,
+                Map.of(ENCODING_ID_BCRYPT, bCryptPasswordEncoder));
+
+        // 方式のIDが付与されていない既存のハッシュはBCryptとして照合する
+        delegatingPasswordEncoder.setDefaultPasswordEncoderForMatches(bCryptPasswordEncoder);
+
+        // ハッシュ化はリクエストを処理するスレッドではなく、専用のスレッドで行う
+        return new OffloadingPasswordEncoder(delegatingPasswordEncoder, threads, queueCapacity, meterRegistry);
     }
-}
\ No newline at end of file
+}
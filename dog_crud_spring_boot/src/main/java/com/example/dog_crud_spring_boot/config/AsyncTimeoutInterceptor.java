@@ -0,0 +1,44 @@
+package com.example.dog_crud_spring_boot.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+
+/**
+ * リクエストごとに非同期の処理のタイムアウトを変更するインターセプター
+ * spring.mvc.async.request-timeout はすべての非同期の処理（ユーザー登録など）に適用されるため短くしておき、
+ * 時間がかかることが前提の処理（エクスポート）のみ、ハンドラーで {@link #setTimeout} を呼び出して長いタイムアウトを指定する
+ * ※StreamingResponseBodyのように、戻り値でタイムアウトを指定できない非同期の処理に使用する
+ */
+public class AsyncTimeoutInterceptor implements CallableProcessingInterceptor {
+
+    private static final String TIMEOUT_ATTRIBUTE = AsyncTimeoutInterceptor.class.getName() + ".timeout";
+
+    /**
+     * このリクエストの非同期の処理のタイムアウトを指定する（ハンドラーの処理中に呼び出す）
+     *
+     * @param request リクエスト
+     * @param timeout タイムアウト
+     */
+    public static void setTimeout(HttpServletRequest request, Duration timeout) {
+        request.setAttribute(TIMEOUT_ATTRIBUTE, timeout);
+    }
+
+    /**
+     * 非同期の処理を開始する直前に、指定されたタイムアウトを設定する
+     * （非同期の処理の開始後はタイムアウトを変更できないため、ここで設定する）
+     */
+    @Override
+    public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+        if (request.getAttribute(TIMEOUT_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) instanceof Duration timeout
+                && request instanceof AsyncWebRequest asyncWebRequest) {
+            asyncWebRequest.setTimeout(timeout.toMillis());
+        }
+    }
+}
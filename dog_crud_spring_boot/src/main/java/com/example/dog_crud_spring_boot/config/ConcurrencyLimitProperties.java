@@ -0,0 +1,41 @@
+package com.example.dog_crud_spring_boot.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 同時に処理するリクエスト数の制限の設定（app.concurrency-limit.*）
+ * 同時に処理できるリクエスト数（上限）は、処理時間に応じて自動で増減する（AIMD）。
+ * 読み取り（GET、HEAD）と更新（それ以外）で別々の上限を持つ。
+ *
+ * @param enabled              制限を行うか
+ * @param read                 読み取りのリクエストの上限の設定
+ * @param write                更新のリクエストの上限の設定
+ * @param includePaths         制限の対象とするパス（Ant形式のパターン）
+ * @param excludePaths         制限の対象外とするパス（長時間接続を保つもの、DBにアクセスしないものなど）
+ * @param highPriorityPaths    優先するパス（上限を超えても high-priority-headroom の分まで受け付ける）
+ * @param lowPriorityPaths     優先度を下げるパス（上限の low-priority-share の割合までしか受け付けない）
+ * @param feedbackExcludePaths 処理時間を上限の調整に反映しないパス（エクスポート、一括処理など、時間がかかることが前提のもの）
+ * @param highPriorityHeadroom 優先するリクエストを上限を超えて受け付ける割合
+ * @param lowPriorityShare     優先度を下げたリクエストに使わせる上限の割合
+ */
+@ConfigurationProperties("app.concurrency-limit")
+public record ConcurrencyLimitProperties(boolean enabled, Limit read, Limit write, List<String> includePaths,
+        List<String> excludePaths, List<String> highPriorityPaths, List<String> lowPriorityPaths,
+        List<String> feedbackExcludePaths, double highPriorityHeadroom, double lowPriorityShare) {
+
+    /**
+     * 同時に処理するリクエスト数の上限の設定
+     *
+     * @param initialLimit     起動時の上限
+     * @param minLimit         上限の最小値（処理が遅くなってもこれ以上は下げない）
+     * @param maxLimit         上限の最大値
+     * @param latencyThreshold 処理時間がこれを超えた場合は、混雑しているとみなして上限を下げる
+     * @param backoffRatio     上限を下げるときに掛ける割合（0.9の場合は1割下げる）
+     */
+    public record Limit(int initialLimit, int minLimit, int maxLimit, Duration latencyThreshold,
+            double backoffRatio) {
+    }
+}
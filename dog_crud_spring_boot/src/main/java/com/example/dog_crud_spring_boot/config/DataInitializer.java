@@ -1,15 +1,26 @@
 package com.example.dog_crud_spring_boot.config;
 
+import com.example.dog_crud_spring_boot.event.AgeMasterChangedEvent;
 import com.example.dog_crud_spring_boot.model.Age;
+import com.example.dog_crud_spring_boot.model.Post;
+import com.example.dog_crud_spring_boot.model.PostCollectionVersion;
 import com.example.dog_crud_spring_boot.repository.AgeRepository;
+import org.springframework.beans.factory.InitializingBean;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
 
 /**
  * アプリケーション起動時に Ageテーブルへ初期データを登録するクラス。
  * CommandLineRunnerを使用して、データベースに既存データが存在しない場合のみ、
  * デフォルトの年齢データ（例：「子犬」「成犬」「老犬」）を登録する。
+ * ※リクエストを受け付ける前に済ませる必要があるもの（投稿一覧のバージョンの行、投稿のIDのシーケンス）は、
+ * CommandLineRunnerではなくBeanの初期化時（EntityManagerFactoryの初期化後、Webサーバーの起動前）に実行する
  */
 @Configuration
 public class DataInitializer {
@@ -17,17 +28,69 @@ public class DataInitializer {
     /**
      * AgeRepositoryを使用してAgeテーブルに初期データを投入するCommandLineRunnerを生成する
      *
-     * @param ageRepository Ageエンティティのリポジトリ
+     * @param ageRepository  Ageエンティティのリポジトリ
+     * @param eventPublisher 初期データを投入したことを通知するためのイベント発行元
      * @return 初期化処理を行うCommandLineRunner
      */
     @Bean
-    CommandLineRunner initDatabase(AgeRepository ageRepository) {
+    CommandLineRunner initDatabase(AgeRepository ageRepository, ApplicationEventPublisher eventPublisher) {
         return args -> {
             if (ageRepository.count() == 0) {
                 ageRepository.save(new Age("子犬", 1L));
                 ageRepository.save(new Age("成犬", 2L));
                 ageRepository.save(new Age("老犬", 3L));
+
+                // 年齢のキャッシュに投入したデータを読み込ませる
+                eventPublisher.publishEvent(new AgeMasterChangedEvent());
+            }
+        };
+    }
+
+    /**
+     * 投稿一覧のバージョンの唯一の行を作成する（作成済みの場合は何もしない）
+     * ※投稿の変更を受け付ける前に作成しておくため、CommandLineRunner（Webサーバーの起動後に実行される）ではなく、
+     * Beanの初期化時に実行する。テーブルはEntityManagerFactoryの初期化時に作成されるため、その後に実行する
+     *
+     * @param jdbcTemplate SQLを実行するためのテンプレート
+     * @return 初期化処理を行うBean
+     */
+    @Bean
+    @DependsOn("entityManagerFactory")
+    InitializingBean initPostCollectionVersion(JdbcTemplate jdbcTemplate) {
+        return () -> {
+            try {
+                jdbcTemplate.update("INSERT INTO " + PostCollectionVersion.TABLE + " (id, version) VALUES (?, 0)",
+                        PostCollectionVersion.SINGLETON_ID);
+            } catch (DuplicateKeyException e) {
+                // 作成済みの場合（2回目以降の起動、同時に起動した他のサーバーが作成した場合）
+            }
+        };
+    }
+
+    /**
+     * 投稿のIDを採番するシーケンス（テーブル）を、既存の投稿の最大のIDより後から採番されるように進める
+     * ※IDの採番をAUTO_INCREMENTからシーケンスに変更する前に登録された投稿とIDが重複しないようにするため。
+     * 1回の採番で確保した範囲の先頭（取得した値 - 確保する数 + 1）が最大のIDより大きくなるよう、確保する数の分だけ余分に進める
+     * ※Webサーバーがリクエストを受け付ける前に実行する（CommandLineRunnerはWebサーバーの起動後に実行されるため使用しない）。
+     * 進める前に投稿が作成されると、Hibernateが進める前の範囲のIDをメモリ上に確保し、進めた後もその範囲のIDで登録して重複するため。
+     * シーケンスのテーブルはEntityManagerFactoryの初期化時に作成されるため、その後に実行する
+     *
+     * @param jdbcTemplate SQLを実行するためのテンプレート
+     * @return 初期化処理を行うBean
+     */
+    @Bean
+    @DependsOn("entityManagerFactory")
+    InitializingBean initPostIdSequence(JdbcTemplate jdbcTemplate) {
+        return () -> {
+            // シーケンスをテーブルで代用するMySQLのみが対象（AUTO_INCREMENTで採番していたのはMySQLのみのため）
+            String databaseProductName = jdbcTemplate.execute(
+                    (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            if (!"MySQL".equals(databaseProductName)) {
+                return;
             }
+            jdbcTemplate.update("UPDATE " + Post.ID_SEQUENCE
+                    + " SET next_val = GREATEST(next_val, (SELECT COALESCE(MAX(id), 0) FROM posts) + ?)",
+                    Post.ID_ALLOCATION_SIZE + 1);
         };
     }
 }
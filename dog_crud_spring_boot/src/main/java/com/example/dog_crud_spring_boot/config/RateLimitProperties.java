@@ -0,0 +1,31 @@
+package com.example.dog_crud_spring_boot.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * リクエスト数の制限の設定（app.rate-limit.*）
+ * 制限はルールごと（メソッドとパスの組み合わせ）、かつ利用者ごと（ログインユーザーのID、未ログインの場合はIPアドレス）に行う。
+ *
+ * @param enabled     制限を行うか
+ * @param maxKeys     保持するバケット（ルールと利用者の組み合わせ）の数の上限（超えた場合は古いものから破棄する）
+ * @param idleTimeout 使用されなかったバケットを破棄するまでの時間（refill-periodより長くすること）
+ * @param rules       制限するリクエストのルール（上から順に判定し、最初に一致したルールのみを適用する）
+ */
+@ConfigurationProperties("app.rate-limit")
+public record RateLimitProperties(boolean enabled, long maxKeys, Duration idleTimeout, List<Rule> rules) {
+
+    /**
+     * 制限するリクエストのルール
+     *
+     * @param name         ルールの名前（メトリクスのタグに使用する）
+     * @param method       HTTPメソッド（省略時はすべてのメソッド）
+     * @param path         パス（Ant形式のパターン。例: /api/posts/**）
+     * @param capacity     連続して受け付けるリクエスト数の上限
+     * @param refillPeriod capacity回分のリクエストを受け付けられるようになるまでの時間
+     */
+    public record Rule(String name, String method, String path, long capacity, Duration refillPeriod) {
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.dog_crud_spring_boot.config;
+
+import com.example.dog_crud_spring_boot.datasource.ReadWriteRoutingDataSource;
+import com.example.dog_crud_spring_boot.datasource.ReplicaAwareJpaDialect;
+import com.example.dog_crud_spring_boot.datasource.ReplicaReadPolicy;
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.JpaProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.JpaVendorAdapter;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * レプリカ（読み取り専用のDB）を使用する場合のデータソースの設定クラス
+ * app.datasource.replica.url が設定されている場合のみ有効になり、読み取り専用のトランザクションをレプリカに、
+ * それ以外をプライマリ（spring.datasource.*）に振り分ける。設定されていない場合はすべてプライマリで処理する。
+ * ※接続先はトランザクションごとに決まるため、1回のリクエストで1つのセッション（接続）を使い回す
+ * Open Session in View（spring.jpa.open-in-view）は無効にすること
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.replica.url")
+public class ReplicaDataSourceConfig {
+
+    /**
+     * プライマリのコネクションプールを定義する
+     * 接続先は spring.datasource.*、プールの設定は spring.datasource.hikari.* で指定する
+     *
+     * @param properties spring.datasource.* の設定
+     * @return プライマリのコネクションプール
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    /**
+     * レプリカのコネクションプールを定義する
+     * 接続先は app.datasource.replica.*、プールの設定は app.datasource.replica.hikari.* で指定する
+     *
+     * @return レプリカのコネクションプール
+     */
+    @Bean
+    @ConfigurationProperties("app.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(@Value("${app.datasource.replica.url}") String url,
+            @Value("${app.datasource.replica.username:${spring.datasource.username:}}") String username,
+            @Value("${app.datasource.replica.password:${spring.datasource.password:}}") String password) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    /**
+     * レプリカから読み取ってよいかを判定するポリシーを定義する
+     *
+     * @param replica              レプリカのコネクションプール
+     * @param readYourWritesWindow 更新を行ったユーザーの読み取りをプライマリで行う期間
+     * @param lagQuery             レプリカの複製の遅れ（秒）を取得するSQL
+     * @param maxLag               レプリカから読み取ってよい複製の遅れの上限
+     * @param meterRegistry        複製の遅れを記録するレジストリ
+     * @return レプリカから読み取ってよいかを判定するポリシー
+     */
+    @Bean
+    public ReplicaReadPolicy replicaReadPolicy(@Qualifier("replicaDataSource") DataSource replica,
+            @Value("${app.datasource.replica.read-your-writes-window}") Duration readYourWritesWindow,
+            @Value("${app.datasource.replica.lag-query}") String lagQuery,
+            @Value("${app.datasource.replica.max-lag}") Duration maxLag,
+            MeterRegistry meterRegistry) {
+        return new ReplicaReadPolicy(replica, readYourWritesWindow, lagQuery, maxLag, meterRegistry);
+    }
+
+    /**
+     * プライマリとレプリカに振り分けるデータソースを定義する
+     *
+     * @param primary           プライマリのコネクションプール
+     * @param replica           レプリカのコネクションプール
+     * @param replicaReadPolicy レプリカから読み取ってよいかを判定するポリシー
+     * @return プライマリとレプリカに振り分けるデータソース
+     */
+    @Bean
+    public ReadWriteRoutingDataSource routingDataSource(@Qualifier("primaryDataSource") DataSource primary,
+            @Qualifier("replicaDataSource") DataSource replica, ReplicaReadPolicy replicaReadPolicy) {
+        return new ReadWriteRoutingDataSource(primary, replica, replicaReadPolicy);
+    }
+
+    /**
+     * JPAなどが使用するデータソースを定義する
+     * 接続先はトランザクションが読み取り専用かどうかで決まるため、実際の接続は最初のSQLを実行するまで遅らせる
+     *
+     * @param routingDataSource プライマリとレプリカに振り分けるデータソース
+     * @return 最初のSQLの実行時に接続する、プライマリとレプリカに振り分けるデータソース
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadWriteRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    /**
+     * JPA（Hibernate）の設定を定義する
+     * レプリカから読み取るトランザクションで2次キャッシュ、クエリキャッシュに結果を格納しないよう、
+     * トランザクションの開始処理を {@link ReplicaAwareJpaDialect} に置き換える（それ以外はSpring Bootが定義するものと同じ）
+     *
+     * @param properties        spring.jpa.* の設定
+     * @param routingDataSource プライマリとレプリカに振り分けるデータソース
+     * @return JPA（Hibernate）の設定
+     */
+    @Bean
+    public JpaVendorAdapter jpaVendorAdapter(JpaProperties properties, ReadWriteRoutingDataSource routingDataSource) {
+        HibernateJpaDialect jpaDialect = new ReplicaAwareJpaDialect(routingDataSource);
+        HibernateJpaVendorAdapter adapter = new HibernateJpaVendorAdapter() {
+            @Override
+            public HibernateJpaDialect getJpaDialect() {
+                return jpaDialect;
+            }
+        };
+        adapter.setShowSql(properties.isShowSql());
+        if (properties.getDatabase() != null) {
+            adapter.setDatabase(properties.getDatabase());
+        }
+        if (properties.getDatabasePlatform() != null) {
+            adapter.setDatabasePlatform(properties.getDatabasePlatform());
+        }
+        adapter.setGenerateDdl(properties.isGenerateDdl());
+        return adapter;
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.dog_crud_spring_boot.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.stream.Collectors;
+
+/**
+ * 仮想スレッドがキャリアスレッドに固定（pinning）されたことを検出し、ログとメトリクスに記録するクラス
+ * 仮想スレッドはsynchronizedの中などでブロックするとキャリアスレッドを占有してしまい、
+ * 同時に処理できるリクエスト数が増えなくなるため、JFRの jdk.VirtualThreadPinned イベントを監視して原因の箇所を特定できるようにする。
+ * ※仮想スレッドを使用する場合（spring.threads.virtual.enabled=true）のみ有効になる
+ */
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadPinningMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    /** ログに出力するスタックトレースの最大の深さ */
+    private static final int MAX_STACK_DEPTH = 20;
+
+    private final Duration threshold;
+    private final Counter pinnedCounter;
+    private RecordingStream recordingStream;
+
+    /**
+     * コンストラクタ
+     *
+     * @param threshold     警告の対象とする固定時間のしきい値
+     * @param meterRegistry 固定された回数を記録するレジストリ
+     */
+    public VirtualThreadPinningMonitor(@Value("${app.virtual-threads.pinning-threshold}") Duration threshold,
+            MeterRegistry meterRegistry) {
+        this.threshold = threshold;
+        this.pinnedCounter = Counter.builder("jvm.threads.virtual.pinned")
+                .description("仮想スレッドがしきい値以上の時間キャリアスレッドに固定された回数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * JFRのイベントの監視を開始する
+     */
+    @PostConstruct
+    public void start() {
+        recordingStream = new RecordingStream();
+        recordingStream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        recordingStream.onEvent(PINNED_EVENT, this::onPinned);
+        recordingStream.startAsync();
+        logger.info("仮想スレッドの固定の監視を開始しました（しきい値：{}ms）", threshold.toMillis());
+    }
+
+    /**
+     * アプリケーションの終了時に監視を停止する
+     */
+    @PreDestroy
+    public void stop() {
+        if (recordingStream != null) {
+            recordingStream.close();
+        }
+    }
+
+    /**
+     * 仮想スレッドが固定されたときに、固定された時間と発生箇所をログに出力する
+     */
+    private void onPinned(RecordedEvent event) {
+        pinnedCounter.increment();
+
+        String stackTrace = event.getStackTrace() == null ? "（スタックトレースなし）"
+                : event.getStackTrace().getFrames().stream()
+                        .limit(MAX_STACK_DEPTH)
+                        .map(VirtualThreadPinningMonitor::formatFrame)
+                        .collect(Collectors.joining("\n\tat ", "\tat ", ""));
+        logger.warn("仮想スレッドがキャリアスレッドに{}ms固定されました\n{}", event.getDuration().toMillis(), stackTrace);
+    }
+
+    private static String formatFrame(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                + "(line:" + frame.getLineNumber() + ")";
+    }
+}
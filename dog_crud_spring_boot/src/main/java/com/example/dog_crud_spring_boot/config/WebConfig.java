@@ -1,11 +1,32 @@
 package com.example.dog_crud_spring_boot.config;
 
+import com.example.dog_crud_spring_boot.security.AccessTokenService;
+import com.example.dog_crud_spring_boot.security.ConcurrencyLimitFilter;
+import com.example.dog_crud_spring_boot.security.PasswordHashingBusyException;
+import com.example.dog_crud_spring_boot.security.RateLimitFilter;
+import com.example.dog_crud_spring_boot.security.TokenAuthenticationFilter;
+import com.example.dog_crud_spring_boot.security.TokenIssuingSuccessHandler;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.web.servlet.server.CookieSameSiteSupplier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authorization.AuthorizationDecision;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.AuthenticationSuccessHandler;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.web.filter.CorsFilter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
@@ -19,8 +40,30 @@ import org.springframework.security.config.Customizer;
  */
 @Configuration
 @EnableMethodSecurity
+@EnableConfigurationProperties({ RateLimitProperties.class, ConcurrencyLimitProperties.class })
 public class WebConfig implements WebMvcConfigurer {
 
+    /** 認証方式：署名付きトークンによるステートレス認証 */
+    private static final String SECURITY_MODE_TOKEN = "token";
+
+    /** 認証方式（session: サーバー側のセッション、token: 署名付きトークン） */
+    private final String securityMode;
+
+    /** Actuatorのエンドポイントを公開するポート（アプリケーションと同じポートの場合は-1） */
+    private final int managementPort;
+
+    /**
+     * WebConfigのコンストラクタ
+     *
+     * @param securityMode   認証方式（app.security.mode）
+     * @param managementPort Actuatorのエンドポイントを公開するポート（management.server.port）
+     */
+    public WebConfig(@Value("${app.security.mode}") String securityMode,
+            @Value("${management.server.port:-1}") int managementPort) {
+        this.securityMode = securityMode;
+        this.managementPort = managementPort;
+    }
+
     /**
      * CORS（Cross-Origin Resource Sharing）の設定を追加する
      * React（http://localhost:3000）からのAPI通信を許可するための構成
@@ -46,16 +89,44 @@ public class WebConfig implements WebMvcConfigurer {
                 .allowCredentials(true);
     }
 
+    /**
+     * 非同期の処理の設定を追加する
+     * リクエストごとにタイムアウトを変更できるよう（エクスポートのみ長くするため）、インターセプターを登録する
+     *
+     * @param configurer 非同期の処理の設定を行うオブジェクト
+     */
+    @Override
+    public void configureAsyncSupport(@NonNull AsyncSupportConfigurer configurer) {
+        configurer.registerCallableInterceptors(new AsyncTimeoutInterceptor());
+    }
+
     /**
      * Spring Securityのフィルタチェーンを定義する
      * 認証・認可、ログイン、ログアウト、CORS、CSRFの設定をまとめて行う
+     * ※トークン認証（app.security.mode=token）の場合はセッションを作成せず、
+     * ログイン成功時にトークンを返し、以降はリクエストごとにトークンを検証する
      *
-     * @param http HttpSecurityの設定用オブジェクト
+     * @param http                       HttpSecurityの設定用オブジェクト
+     * @param accessTokenServiceProvider トークンの発行、検証を行うサービス（トークン認証の場合のみ存在する）
+     * @param objectMapper               トークンをJSONで返すためのマッパー
+     * @param rateLimitProperties        リクエスト数の制限の設定
+     * @param concurrencyLimitProperties 同時に処理するリクエスト数の制限の設定
+     * @param meterRegistry              リクエスト数の制限で拒否した数などを記録するレジストリ
      * @return 設定済みのSecurityFilterChainオブジェクト
      * @throws Exception セキュリティ設定中に発生する可能性のある例外
      */
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http,
+            ObjectProvider<AccessTokenService> accessTokenServiceProvider, ObjectMapper objectMapper,
+            RateLimitProperties rateLimitProperties, ConcurrencyLimitProperties concurrencyLimitProperties,
+            MeterRegistry meterRegistry) throws Exception {
+        boolean tokenMode = SECURITY_MODE_TOKEN.equals(securityMode);
+
+        // ログイン成功時の処理（セッション認証ではHTTP 200のみ、トークン認証ではトークンを返す）
+        AuthenticationSuccessHandler successHandler = tokenMode
+                ? new TokenIssuingSuccessHandler(accessTokenServiceProvider.getObject(), objectMapper)
+                : (req, res, auth) -> res.setStatus(200);
+
         http
                 // CORSを有効化（↑で定義したCORS設定が使われるようにする）
                 .cors(Customizer.withDefaults())
@@ -64,22 +135,57 @@ public class WebConfig implements WebMvcConfigurer {
                 // を無効化（API用アプリのため、トークン管理しないので無効にする）
                 .csrf(csrf -> csrf.disable())
 
-                // 全てのリクエストを許可する（現状は細かい制限を加えない）
+                // Actuatorはヘルスチェックを除き、管理用のポートで受けたリクエストのみ許可する
+                // （メトリクスにはDBの統計やエンドポイントごとの処理時間が含まれるため、公開するポートでは拒否する）
+                // それ以外の全てのリクエストを許可する（現状は細かい制限を加えない）
                 .authorizeHttpRequests(auth -> auth
+                        .requestMatchers("/actuator/health", "/actuator/health/**").permitAll()
+                        .requestMatchers("/actuator/**").access((authentication, context) -> new AuthorizationDecision(
+                                managementPort > 0 && context.getRequest().getLocalPort() == managementPort))
                         .requestMatchers("/me").authenticated()
                         .anyRequest().permitAll())
 
                 // フォームログインの設定
                 .formLogin(form -> form
                         .loginProcessingUrl("/login")// ログインのリクエストパス
-                        .successHandler((req, res, auth) -> res.setStatus(200))// 成功時はHTTP 200
-                        .failureHandler((req, res, ex) -> res.setStatus(401)))// 失敗時はHTTP 401（Unauthorized）
+                        .successHandler(successHandler)// 成功時はHTTP 200（トークン認証ではトークンも返す）
+                        .failureHandler((req, res, ex) -> {
+                            if (ex instanceof PasswordHashingBusyException) {
+                                // ログインが集中してハッシュ化を受け付けられない場合はHTTP 429（Too Many Requests）
+                                res.setHeader(HttpHeaders.RETRY_AFTER, "1");
+                                res.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+                            } else {
+                                res.setStatus(401);// 失敗時はHTTP 401（Unauthorized）
+                            }
+                        }))
 
                 // ログアウト設定
                 .logout(logout -> logout
                         .logoutUrl("/logout")// ログアウトのリクエストパス
                         .logoutSuccessHandler((req, res, auth) -> res.setStatus(200))); // ログアウト成功時はHTTP 200
 
+        if (tokenMode) {
+            http
+                    // セッションを作成、使用しない（どのサーバーにリクエストが振り分けられても認証できるようにする）
+                    .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+
+                    // リクエストごとにAuthorizationヘッダーのトークンを検証する
+                    .addFilterBefore(new TokenAuthenticationFilter(accessTokenServiceProvider.getObject()),
+                            UsernamePasswordAuthenticationFilter.class);
+        }
+
+        if (concurrencyLimitProperties.enabled()) {
+            // 同時に処理するリクエスト数を制限する（拒否した場合もCORSのヘッダーが付与されるよう、CORSの処理の後に実行する）
+            http.addFilterAfter(new ConcurrencyLimitFilter(concurrencyLimitProperties, objectMapper, meterRegistry),
+                    CorsFilter.class);
+        }
+
+        if (rateLimitProperties.enabled()) {
+            // リクエスト数を利用者ごとに制限する（ログインの処理より前、かつログイン状態の復元、トークンの検証より後に実行する）
+            http.addFilterBefore(new RateLimitFilter(rateLimitProperties, objectMapper, meterRegistry),
+                    UsernamePasswordAuthenticationFilter.class);
+        }
+
         // 最終的にSecurityFilterChainを返す
         return http.build();
     }
@@ -1,11 +1,14 @@
 package com.example.dog_crud_spring_boot.controller;
 
 import com.example.dog_crud_spring_boot.model.Age;
-import com.example.dog_crud_spring_boot.repository.AgeRepository;
+import com.example.dog_crud_spring_boot.service.AgeCache;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Duration;
 import java.util.List;
 
 /**
@@ -17,20 +20,33 @@ import java.util.List;
 @RequestMapping("/api/ages")
 public class AgeController {
 
-    private final AgeRepository ageRepository;
+    private final AgeCache ageCache;
+    private final CacheControl cacheControl;
 
     /**
      * AgeControllerのコンストラクタ
      * 
-     * @param ageRepository 年齢データへのアクセスを提供するリポジトリ
+     * @param ageCache 年齢のマスタデータを保持するキャッシュ
+     * @param maxAge   クライアントが年齢の一覧をキャッシュしてよい期間
      */
-    public AgeController(AgeRepository ageRepository) {
-        this.ageRepository = ageRepository;
+    public AgeController(AgeCache ageCache, @Value("${app.ages.cache-max-age}") Duration maxAge) {
+        this.ageCache = ageCache;
+        this.cacheControl = CacheControl.maxAge(maxAge).cachePublic();
     }
 
+    /**
+     * すべての年齢を並び順で昇順に取得する
+     * ※DBにはアクセスせず、キャッシュの内容を返す。
+     * ETagを付与しているため、クライアントが同じETagでリクエストした場合は 304 Not Modified となる
+     *
+     * @return 年齢のリストを含む HTTP レスポンス（ステータスコード 200）
+     */
     @GetMapping("/all")
     public  ResponseEntity<List<Age>> getAll(){
-        List<Age> ageList = ageRepository.findAllByOrderBySortOrderAsc();
-        return ResponseEntity.ok(ageList);
+        AgeCache.Snapshot snapshot = ageCache.getSnapshot();
+        return ResponseEntity.ok()
+                .eTag(snapshot.eTag())
+                .cacheControl(cacheControl)
+                .body(snapshot.ages());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,51 @@
+package com.example.dog_crud_spring_boot.controller;
+
+import com.example.dog_crud_spring_boot.dto.RefreshTokenRequestDto;
+import com.example.dog_crud_spring_boot.dto.TokenResponseDto;
+import com.example.dog_crud_spring_boot.security.AccessTokenService;
+import com.example.dog_crud_spring_boot.security.LoginUser;
+
+import jakarta.validation.Valid;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * トークン認証（app.security.mode=token）に関するAPIを提供するコントローラ
+ * ※ログイン自体はセッション認証と同様にSpring Securityの機能（/login）に任せるため、ここではトークンの再発行のみを行う
+ */
+@RestController
+@RequestMapping("/api/auth")
+@ConditionalOnProperty(name = "app.security.mode", havingValue = "token")
+public class AuthController {
+
+    private static final String INVALID_REFRESH_TOKEN = "リフレッシュトークンが不正、または有効期限が切れています";
+
+    private final AccessTokenService accessTokenService;
+
+    /**
+     * AuthControllerのコンストラクタ
+     *
+     * @param accessTokenService トークンの発行、検証を行うサービス
+     */
+    public AuthController(AccessTokenService accessTokenService) {
+        this.accessTokenService = accessTokenService;
+    }
+
+    /**
+     * リフレッシュトークンを検証し、新しいアクセストークンとリフレッシュトークンを発行する
+     * ※DBにはアクセスせず、リフレッシュトークンの署名と有効期限のみで判定する
+     *
+     * @param request リフレッシュトークン
+     * @return 新しく発行したトークンを含むレスポンス（ステータスコード200）
+     * @throws BadCredentialsException リフレッシュトークンが不正、または有効期限が切れている場合
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<TokenResponseDto> refresh(@Valid @RequestBody RefreshTokenRequestDto request) {
+        LoginUser loginUser = accessTokenService.verifyRefreshToken(request.getRefreshToken())
+                .orElseThrow(() -> new BadCredentialsException(INVALID_REFRESH_TOKEN));
+        return ResponseEntity.ok(accessTokenService.issueTokens(loginUser));
+    }
+}
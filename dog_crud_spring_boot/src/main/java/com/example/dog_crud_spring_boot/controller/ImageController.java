@@ -0,0 +1,154 @@
+package com.example.dog_crud_spring_boot.controller;
+
+import com.example.dog_crud_spring_boot.dto.ImageUploadResponseDto;
+import com.example.dog_crud_spring_boot.image.ImageStorageService;
+import com.example.dog_crud_spring_boot.image.ImageUrls;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.apache.catalina.Globals;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * 画像に関するAPIを提供するコントローラ
+ * 画像のアップロードと、アップロードされた画像（元画像、サムネイル）の配信を行う
+ */
+@RestController
+@RequestMapping(ImageUrls.BASE_PATH)
+public class ImageController {
+
+    /** 画像のURLは内容が変わらないため、1年間キャッシュさせ、再検証もさせない */
+    private static final String IMMUTABLE_CACHE_CONTROL = CacheControl.maxAge(Duration.ofDays(365))
+            .cachePublic()
+            .immutable()
+            .getHeaderValue();
+
+    private final ImageStorageService imageStorageService;
+
+    /**
+     * ImageControllerのコンストラクタ
+     *
+     * @param imageStorageService 画像の保存、サムネイルの作成を行うサービス
+     */
+    public ImageController(ImageStorageService imageStorageService) {
+        this.imageStorageService = imageStorageService;
+    }
+
+    /**
+     * 画像をアップロードする
+     * ※返却された画像のURLを投稿の画像のURLとして送信すること
+     *
+     * @param file アップロードする画像（JPEG、PNG、GIF）
+     * @return 画像とサムネイルのURLを含む HTTP レスポンス（ステータスコード 201）
+     * @throws IOException 画像の保存に失敗した場合
+     */
+    @PostMapping
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<ImageUploadResponseDto> upload(@RequestParam MultipartFile file) throws IOException {
+        ImageStorageService.StoredImage image = imageStorageService.store(file);
+
+        String imageUrl = ServletUriComponentsBuilder.fromCurrentContextPath()
+                .path(ImageUrls.BASE_PATH + "/{fileName}")
+                .buildAndExpand(image.fileName())
+                .toUriString();
+        ImageUploadResponseDto response = new ImageUploadResponseDto();
+        response.setImageUrl(imageUrl);
+        response.setThumbnailUrl(ImageUrls.thumbnailUrlOf(imageUrl));
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+
+    /**
+     * 元画像を配信する
+     *
+     * @param fileName ファイル名（{ハッシュ値}.{拡張子}）
+     * @param request  リクエスト
+     * @param response レスポンス
+     * @throws IOException 画像の読み込みに失敗した場合
+     */
+    @GetMapping("/{fileName}")
+    public void getOriginal(@PathVariable String fileName, HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        Optional<ImageStorageService.StoredImage> image = imageStorageService.findOriginal(fileName);
+        if (image.isEmpty()) {
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+        sendFile(imageStorageService.originalPath(image.get()), imageStorageService.mediaTypeOf(image.get()),
+                image.get().fileName(), request, response);
+    }
+
+    /**
+     * サムネイルを配信する
+     * まだ作成されていない場合は、元画像に一時的に転送する（転送はキャッシュさせない）
+     *
+     * @param hash     画像のハッシュ値
+     * @param request  リクエスト
+     * @param response レスポンス
+     * @throws IOException 画像の読み込みに失敗した場合
+     */
+    @GetMapping("/{hash}/thumbnail")
+    public void getThumbnail(@PathVariable String hash, HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        Optional<Path> thumbnail = imageStorageService.findThumbnail(hash);
+        if (thumbnail.isPresent()) {
+            sendFile(thumbnail.get(), imageStorageService.thumbnailMediaType(), hash + "-thumbnail", request,
+                    response);
+            return;
+        }
+
+        Optional<ImageStorageService.StoredImage> original = imageStorageService.findOriginalByHash(hash);
+        if (original.isEmpty()) {
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noStore().getHeaderValue());
+        response.setHeader(HttpHeaders.LOCATION,
+                request.getContextPath() + ImageUrls.BASE_PATH + "/" + original.get().fileName());
+        response.setStatus(HttpStatus.TEMPORARY_REDIRECT.value());
+    }
+
+    /**
+     * ファイルをレスポンスとして送信する
+     * Tomcatのsendfileが使える場合は、ファイルの内容をJavaのヒープにコピーせず、OSに直接ソケットへ送信させる（ゼロコピー）。
+     *
+     * @param file      送信するファイル
+     * @param mediaType Content-Type
+     * @param eTag      ETag（ファイルの内容が変わらないため、ハッシュ値をそのまま使用する）
+     */
+    private void sendFile(Path file, MediaType mediaType, String eTag, HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        String quotedETag = "\"" + eTag + "\"";
+        response.setHeader(HttpHeaders.CACHE_CONTROL, IMMUTABLE_CACHE_CONTROL);
+        response.setHeader(HttpHeaders.ETAG, quotedETag);
+        if (quotedETag.equals(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
+
+        long length = Files.size(file);
+        response.setContentType(mediaType.toString());
+        response.setContentLengthLong(length);
+        if (Boolean.TRUE.equals(request.getAttribute(Globals.SENDFILE_SUPPORTED_ATTR))) {
+            request.setAttribute(Globals.SENDFILE_FILENAME_ATTR, file.toAbsolutePath().toString());
+            request.setAttribute(Globals.SENDFILE_FILE_START_ATTR, 0L);
+            request.setAttribute(Globals.SENDFILE_FILE_END_ATTR, length);
+        } else {
+            Files.copy(file, response.getOutputStream());
+        }
+    }
+}
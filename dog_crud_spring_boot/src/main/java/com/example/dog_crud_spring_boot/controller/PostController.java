@@ -1,17 +1,45 @@
 package com.example.dog_crud_spring_boot.controller;
 
+import com.example.dog_crud_spring_boot.config.AsyncTimeoutInterceptor;
+import com.example.dog_crud_spring_boot.dto.PostBulkResponseDto;
+import com.example.dog_crud_spring_boot.dto.PostBulkUpdateRequestDto;
+import com.example.dog_crud_spring_boot.dto.PostCompactPageResponseDto;
+import com.example.dog_crud_spring_boot.dto.PostPageResponseDto;
 import com.example.dog_crud_spring_boot.dto.PostRequestDto;
 import com.example.dog_crud_spring_boot.dto.PostResponseDto;
+import com.example.dog_crud_spring_boot.dto.PostSearchResponseDto;
+import com.example.dog_crud_spring_boot.dto.PostVersionDto;
+import com.example.dog_crud_spring_boot.service.InvalidRequestException;
+import com.example.dog_crud_spring_boot.service.PostBulkService;
+import com.example.dog_crud_spring_boot.service.PostExportService;
 import com.example.dog_crud_spring_boot.service.PostService;
+import com.example.dog_crud_spring_boot.stream.PostEventBroadcaster;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 
+import java.io.IOException;
 import java.nio.file.AccessDeniedException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 /**
  * 投稿に関するAPIを提供するコントローラ
@@ -20,26 +48,146 @@ import java.util.List;
 @RestController
 @RequestMapping("/api/posts")
 public class PostController {
+    /** キャッシュした投稿を使用する前に、毎回変更の有無を確認させる（変更がなければ 304 Not Modified で本文を返さない） */
+    private static final CacheControl REVALIDATE = CacheControl.noCache();
+    private static final String WRONG_IF_MATCH = "If-Matchヘッダーの形式が不正です";
+
     private final PostService postService;
+    private final PostExportService postExportService;
+    private final PostBulkService postBulkService;
+    private final PostEventBroadcaster postEventBroadcaster;
+    private final Duration exportTimeout;
 
     /**
      * PostControllerのコンストラクタ
      * 
-     * @param postService 投稿に関するロジックを提供するサービス
+     * @param postService          投稿に関するロジックを提供するサービス
+     * @param postExportService    投稿をファイル形式で出力するサービス
+     * @param postBulkService      投稿の一括作成、更新、削除を行うサービス
+     * @param postEventBroadcaster 投稿の変更を購読中のクライアントに配信するクラス
+     * @param exportTimeout        エクスポートの最大時間（他の非同期の処理より長くする）
      */
-    public PostController(PostService postService) {
+    public PostController(PostService postService, PostExportService postExportService,
+            PostBulkService postBulkService, PostEventBroadcaster postEventBroadcaster,
+            @Value("${app.posts.export.timeout}") Duration exportTimeout) {
         this.postService = postService;
+        this.postExportService = postExportService;
+        this.postBulkService = postBulkService;
+        this.postEventBroadcaster = postEventBroadcaster;
+        this.exportTimeout = exportTimeout;
     }
 
     /**
      * すべての投稿を取得する
+     * ※投稿一覧が前回の取得から変わっていない場合は、投稿を取得せずに 304 Not Modified を返す
      *
+     * @param request リクエスト（If-None-Matchの確認に使用する）
      * @return 投稿のリストを含む HTTP レスポンス（ステータスコード 200）
      */
     @GetMapping("/all")
-    public ResponseEntity<List<PostResponseDto>> getAll() {
+    public ResponseEntity<List<PostResponseDto>> getAll(WebRequest request) {
+        if (isPostsNotModified(request)) {
+            return null;
+        }
         List<PostResponseDto> postList = postService.getAllPosts();
-        return ResponseEntity.ok(postList);
+        return ResponseEntity.ok().cacheControl(REVALIDATE).body(postList);
+    }
+
+    /**
+     * 投稿一覧（フィード）を1ページ分取得する
+     * ※投稿件数が増えても応答が重くならないよう、すべての投稿を返す /all ではなくこちらを使用すること
+     *
+     * @param cursor 前のページで返却されたカーソル（先頭ページを取得する場合は省略する）
+     * @param size   1ページあたりの件数（省略時はデフォルト値）
+     * @param request リクエスト（If-None-Matchの確認に使用する）
+     * @return 1ページ分の投稿と次のページのカーソルを含む HTTP レスポンス（ステータスコード 200）
+     */
+    @GetMapping("/feed")
+    public ResponseEntity<PostPageResponseDto> getFeed(@RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size, WebRequest request) {
+        // ※ETagはURL（カーソル、件数）ごとに保持されるため、投稿一覧全体のバージョンのみで判定できる
+        if (isPostsNotModified(request)) {
+            return null;
+        }
+        PostPageResponseDto page = postService.getFeed(cursor, size);
+        return ResponseEntity.ok().cacheControl(REVALIDATE).body(page);
+    }
+
+    /**
+     * 投稿一覧（フィード）を1ページ分、コンパクト形式で取得する
+     * 投稿ごとのユーザーの情報、年齢の値の代わりに、ページごとの辞書（users、ages）を返すため、/feed よりレスポンスが小さい
+     *
+     * @param cursor 前のページで返却されたカーソル（先頭ページを取得する場合は省略する）
+     * @param size   1ページあたりの件数（省略時はデフォルト値）
+     * @param request リクエスト（If-None-Matchの確認に使用する）
+     * @return 1ページ分の投稿、ユーザー・年齢の辞書と次のページのカーソルを含む HTTP レスポンス（ステータスコード 200）
+     */
+    @GetMapping("/feed/compact")
+    public ResponseEntity<PostCompactPageResponseDto> getCompactFeed(@RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size, WebRequest request) {
+        if (isPostsNotModified(request)) {
+            return null;
+        }
+        PostCompactPageResponseDto page = postService.getCompactFeed(cursor, size);
+        return ResponseEntity.ok().cacheControl(REVALIDATE).body(page);
+    }
+
+    /**
+     * 投稿の作成、更新、削除をServer-Sent Eventsで購読する
+     * 変更があったときだけ、変更された投稿（削除の場合はID）がイベントとして送信されるため、投稿一覧を取得し直す必要はない。
+     * ※再接続時はブラウザが Last-Event-ID ヘッダーを送信し、切断中の変更が再送される。
+     * 再送できない場合は reset イベントが送信されるため、投稿一覧を取得し直すこと
+     *
+     * @param lastEventId 最後に受信したイベントのID（初回の接続の場合は省略される）
+     * @return イベントを送信するSseEmitter
+     */
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return postEventBroadcaster.subscribe(lastEventId);
+    }
+
+    /**
+     * タイトル、内容にキーワードを含む投稿を関連度の高い順に検索する
+     *
+     * @param q     キーワード
+     * @param ageId 年齢のID（省略時は絞り込まない）
+     * @param page  ページ番号（0始まり、省略時は0）
+     * @param size  1ページあたりの件数（省略時はデフォルト値）
+     * @return 検索結果を含む HTTP レスポンス（ステータスコード 200）
+     * @throws IOException 検索のインデックスの読み込みに失敗した場合
+     */
+    @GetMapping("/search")
+    public ResponseEntity<PostSearchResponseDto> search(@RequestParam String q,
+            @RequestParam(required = false) Long ageId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) Integer size) throws IOException {
+        PostSearchResponseDto result = postService.searchPosts(q, ageId, page, size);
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * すべての投稿をファイル形式（NDJSONまたはCSV）で出力する（分析用）
+     * 投稿をDBから1件ずつ取得しながらレスポンスに書き出すため、件数が多くてもサーバーのメモリを圧迫しない。
+     * ※書き出しは非同期で行い、件数が多いと数分かかるため、この処理のみ非同期の処理のタイムアウトを長くする
+     *
+     * @param format  出力形式（ndjson または csv、省略時は ndjson）
+     * @param request リクエスト（非同期の処理のタイムアウトの指定に使用する）
+     * @return 投稿を順次書き出す HTTP レスポンス（ステータスコード 200）
+     * @throws InvalidRequestException 対応していない出力形式の場合
+     */
+    @PreAuthorize("isAuthenticated()")
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(defaultValue = "ndjson") String format,
+            HttpServletRequest request) {
+        PostExportService.Format exportFormat = PostExportService.Format.from(format);
+        AsyncTimeoutInterceptor.setTimeout(request, exportTimeout);
+        ContentDisposition contentDisposition = ContentDisposition.attachment()
+                .filename("posts." + exportFormat.getExtension())
+                .build();
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition.toString())
+                .body(outputStream -> postExportService.export(exportFormat, outputStream));
     }
 
     /**
@@ -57,33 +205,105 @@ public class PostController {
         return ResponseEntity.ok(savedPost);
     }
 
+    /**
+     * 投稿をまとめて作成する（データの取り込みなど、大量の投稿を作成する場合に使用する）
+     * ※入力内容が不正なものがあってもリクエスト全体は失敗せず、1件ごとの処理結果（ステータスコード）を返す
+     *
+     * @param requests       作成する投稿のデータ
+     * @param authentication ログインしているユーザーの認証情報
+     * @return 1件ごとの処理結果を含む HTTP レスポンス（ステータスコード 200）
+     */
+    @PreAuthorize("isAuthenticated()")
+    @PostMapping("/bulk")
+    public ResponseEntity<PostBulkResponseDto> createBulk(@RequestBody List<PostRequestDto> requests,
+            Authentication authentication) {
+        return ResponseEntity.ok(postBulkService.createPosts(requests, authentication));
+    }
+
+    /**
+     * 投稿をまとめて更新する
+     * ※入力内容が不正なもの、権限がないもの、バージョンが異なるものがあってもリクエスト全体は失敗せず、1件ごとの処理結果を返す
+     *
+     * @param requests       更新内容
+     * @param authentication ログインしているユーザーの認証情報
+     * @return 1件ごとの処理結果を含む HTTP レスポンス（ステータスコード 200）
+     */
+    @PreAuthorize("isAuthenticated()")
+    @PutMapping("/bulk")
+    public ResponseEntity<PostBulkResponseDto> updateBulk(@RequestBody List<PostBulkUpdateRequestDto> requests,
+            Authentication authentication) {
+        return ResponseEntity.ok(postBulkService.updatePosts(requests, authentication));
+    }
+
+    /**
+     * 投稿をまとめて削除する
+     * ※存在しないもの、権限がないものがあってもリクエスト全体は失敗せず、1件ごとの処理結果を返す
+     *
+     * @param ids            削除する投稿のID
+     * @param authentication ログインしているユーザーの認証情報
+     * @return 1件ごとの処理結果を含む HTTP レスポンス（ステータスコード 200）
+     */
+    @PreAuthorize("isAuthenticated()")
+    @DeleteMapping("/bulk")
+    public ResponseEntity<PostBulkResponseDto> deleteBulk(@RequestBody List<Long> ids,
+            Authentication authentication) {
+        return ResponseEntity.ok(postBulkService.deletePosts(ids, authentication));
+    }
+
     /**
      * 指定されたIDの投稿を取得する
      *
-     * @param id 取得対象の投稿ID
+     * ※投稿が前回の取得から変わっていない場合は、投稿のバージョンのみを取得し、投稿の取得、変換をせずに 304 Not Modified を返す
+     * ※バージョンと投稿は別々のトランザクションで取得するため、その間に更新がコミットされることがある。
+     * 返却する投稿と異なるバージョンのETagを返さないよう、200を返す場合はETag、Last-Modifiedを投稿の値で設定し直す
+     *
+     * @param id       取得対象の投稿ID
+     * @param request  リクエスト（If-None-Match、If-Modified-Sinceの確認に使用する）
+     * @param response レスポンス（ETag、Last-Modifiedの設定に使用する）
      * @return 該当する投稿が存在すればステータス200で投稿を返し、存在しなければ404を返す HTTP レスポンス
      */
     @GetMapping("/{id}")
-    public ResponseEntity<PostResponseDto> getById(@PathVariable Long id) {
-        return postService.getPostById(id)
-                .map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<PostResponseDto> getById(@PathVariable Long id, WebRequest request,
+            HttpServletResponse response) {
+        Optional<PostVersionDto> version = postService.getPostVersion(id);
+        if (version.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (request.checkNotModified(postETag(id, version.get().getVersion()),
+                toEpochMilli(version.get().getUpdatedAt()))) {
+            return null;
+        }
+        Optional<PostResponseDto> post = postService.getPostById(id);
+        if (post.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        // checkNotModifiedが設定したETag、Last-Modifiedを上書きする（ResponseEntityに指定するとヘッダーが重複するため）
+        response.setHeader(HttpHeaders.ETAG, postETag(id, post.get().getVersion()));
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, toEpochMilli(post.get().getUpdatedAt()));
+        return ResponseEntity.ok().cacheControl(REVALIDATE).body(post.get());
     }
 
     /**
      * 指定されたIDの投稿を更新する
      * ※バリデーションに引っかかるなどすると例外が発生するが、グローバルエラーハンドラーで処理できるためtry-catchは不要である。
+     * If-Matchヘッダーに投稿取得時のETagを指定した場合、その後に他の更新が反映されていれば 412 Precondition Failed となる
      *
      * @param id             更新対象の投稿ID
      * @param updatedPostDto 新しい投稿データ（バリデーション付き）
+     * @param ifMatch        投稿取得時のETag（カンマ区切りで複数指定でき、いずれかと一致すれば更新する。
+     *                       省略時は確認しない。ETagの並びとして解釈できない場合は400）
      * @return 更新後の投稿データを含む HTTP レスポンス
      */
     @PutMapping("/{id}")
     public ResponseEntity<PostResponseDto> update(@PathVariable Long id,
             @Valid @RequestBody PostRequestDto updatedPostDto,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             Authentication authentication) throws AccessDeniedException {
-        PostResponseDto updatedPost = postService.updatePost(id, updatedPostDto, authentication);
-        return ResponseEntity.ok(updatedPost);
+        PostResponseDto updatedPost = postService.updatePost(id, updatedPostDto, parseIfMatch(id, ifMatch),
+                authentication);
+        return ResponseEntity.ok()
+                .eTag(postETag(id, updatedPost.getVersion()))
+                .body(updatedPost);
     }
 
     /**
@@ -99,4 +319,82 @@ public class PostController {
         postService.deletePost(id, authentication);
         return ResponseEntity.noContent().build();
     }
-}
\ No newline at end of file
+
+    /**
+     * 投稿一覧のバージョンから、クライアントが保持している投稿一覧が最新かを判定する
+     * 最新の場合は 304 Not Modified が設定される。最新でない場合はETagがレスポンスに設定される
+     * ※投稿一覧のバージョンはコミットの順に進む番号で、日時ではないためLast-Modifiedは設定しない
+     * ※ETagは弱いETag（W/"..."）とする。Tomcatは強いETagを持つレスポンスを圧縮しないため、強いETagでは
+     * 投稿一覧（圧縮の効果が最も大きいレスポンス）がgzipで圧縮されなくなる。投稿一覧はIf-Matchで使用しないため弱いETagで問題ない
+     *
+     * @param request リクエスト
+     * @return クライアントが保持している投稿一覧が最新の場合はtrue
+     */
+    private boolean isPostsNotModified(WebRequest request) {
+        Optional<Long> version = postService.getPostsVersion();
+        return version.isPresent() && request.checkNotModified("W/\"posts-" + version.get() + "\"");
+    }
+
+    /**
+     * 投稿のETagを生成する（投稿のIDとバージョンから生成する）
+     * ※If-Matchでの比較に使用するため強いETagとする（そのため投稿1件のレスポンスはgzipで圧縮されない）
+     */
+    private static String postETag(Long id, long version) {
+        return "\"" + id + "-" + version + "\"";
+    }
+
+    /**
+     * If-Matchヘッダーの値から、クライアントが編集を始めたときの投稿のバージョンを取り出す
+     * ※If-MatchにはカンマでETagを複数指定できるため（RFC 9110）、この投稿のETagであるものをすべて取り出す
+     *
+     * @param id      投稿のID
+     * @param ifMatch If-Matchヘッダーの値
+     * @return バージョン（ヘッダーが省略された、または「*」の場合はnull、この投稿のETagが含まれない場合は空）
+     *         ※If-Matchは強い比較で判定するため（RFC 9110）、弱いETag（W/"..."）は一致しないものとして扱う
+     * @throws InvalidRequestException ETagの並びとして解釈できない場合
+     */
+    private static Set<Long> parseIfMatch(Long id, String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        Set<Long> versions = new HashSet<>();
+        String prefix = id + "-";
+        int tags = 0;
+        int index = 0;
+        while (index < ifMatch.length()) {
+            char c = ifMatch.charAt(index);
+            if (c == ',' || c == ' ' || c == '\t') {
+                index++;
+                continue;
+            }
+            // W/"..." または "..." の形式のETagを1つ読み込む
+            boolean weak = ifMatch.startsWith("W/", index);
+            int open = weak ? index + 2 : index;
+            int close = open < ifMatch.length() && ifMatch.charAt(open) == '"' ? ifMatch.indexOf('"', open + 1) : -1;
+            if (close < 0) {
+                throw new InvalidRequestException(HttpHeaders.IF_MATCH, WRONG_IF_MATCH);
+            }
+            String tag = ifMatch.substring(open + 1, close);
+            if (!weak && tag.startsWith(prefix)) {
+                try {
+                    versions.add(Long.valueOf(tag.substring(prefix.length())));
+                } catch (NumberFormatException e) {
+                    // この投稿のETagではないため、一致しないものとして扱う
+                }
+            }
+            tags++;
+            index = close + 1;
+        }
+        if (tags == 0) {
+            throw new InvalidRequestException(HttpHeaders.IF_MATCH, WRONG_IF_MATCH);
+        }
+        return versions;
+    }
+
+    /**
+     * 日時をLast-Modifiedに設定する値（エポックミリ秒）に変換する
+     */
+    private static long toEpochMilli(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
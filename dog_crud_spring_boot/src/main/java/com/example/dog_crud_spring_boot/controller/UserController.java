@@ -1,63 +1,55 @@
 package com.example.dog_crud_spring_boot.controller;
 
+import com.example.dog_crud_spring_boot.dto.PostPageResponseDto;
 import com.example.dog_crud_spring_boot.dto.UserResponseDto;
 import com.example.dog_crud_spring_boot.model.User;
-import com.example.dog_crud_spring_boot.repository.UserRepository;
+import com.example.dog_crud_spring_boot.security.LoginUser;
+import com.example.dog_crud_spring_boot.service.PostService;
+import com.example.dog_crud_spring_boot.service.UserService;
 
 import jakarta.validation.Valid;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * ユーザー関連の操作を提供するRESTコントローラ
  * 下記の機能を持つ
  * ・新規ユーザー登録
  * ・ログイン中のユーザー情報取得
+ * ・ユーザーごとの投稿一覧の取得
  * ※ログイン機能はSpring Security の機能（/login）に任せるので特別なコードは不要
  */
 @RestController
 @RequestMapping("/api/users")
 public class UserController {
 
-    private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final UserService userService;
+    private final PostService postService;
 
     @Autowired
-    public UserController(UserRepository userRepository, PasswordEncoder passwordEncoder) {
-        this.userRepository = userRepository;
-        this.passwordEncoder = passwordEncoder;
+    public UserController(UserService userService, PostService postService) {
+        this.userService = userService;
+        this.postService = postService;
     }
 
     /**
      * 新しいユーザーを登録する。
      * すでに登録されたメールアドレスが存在する場合は登録を拒否する。
+     * ※パスワードのハッシュ化と保存は非同期で行い、完了を待つ間リクエストを処理するスレッドを占有しない
      *
      * @param user 登録対象のユーザー情報（バリデーション付き）
      * @return 登録されたユーザーのIDとメールアドレスを含むレスポンス（ステータスコード200）
      * @throws IllegalArgumentException メールアドレスが既に登録されている場合
      */
     @PostMapping("/register")
-    public ResponseEntity<UserResponseDto> register(@Valid @RequestBody User user) {
-        if (userRepository.existsByEmail(user.getEmail())) {
-            throw new IllegalArgumentException("このメールアドレスは既に使われています");
-        }
-
-        // パスワードをハッシュ化する
-        user.setPassword(passwordEncoder.encode(user.getPassword())); // パスワードをハッシュ化
-
-        // 保存を実行する
-        User savedUser = userRepository.save(user);
-        UserResponseDto userResponse = new UserResponseDto();
-        userResponse.setId(savedUser.getId());
-        userResponse.setEmail(savedUser.getEmail());
-        userResponse.setUserName(savedUser.getUserName());
-
-        return ResponseEntity.ok(userResponse);
+    public CompletableFuture<ResponseEntity<UserResponseDto>> register(@Valid @RequestBody User user) {
+        return userService.register(user).thenApply(ResponseEntity::ok);
     }
 
     /**
@@ -70,15 +62,48 @@ public class UserController {
     @PreAuthorize("isAuthenticated()")
     @GetMapping("/me")
     public ResponseEntity<UserResponseDto> getCurrentUser(Authentication authentication) {
-        // 認証されている場合は、認証情報からログインユーザー（Userオブジェクト）を取得する
-        User user = (User) authentication.getPrincipal();
+        // 認証されている場合は、認証情報からログインユーザー（LoginUserオブジェクト）を取得する
+        // ※ログイン時にセッションへ保存された情報のため、DBにはアクセスしない
+        LoginUser user = (LoginUser) authentication.getPrincipal();
 
-        // 上記のままではパスワードのような、使用しない情報も含まれている。
-        // ユーザーIDとメールアドレスだけを返す簡易レスポンスを作成して返す
+        // ユーザーID、メールアドレス、名前だけを返す簡易レスポンスを作成して返す
         UserResponseDto response = new UserResponseDto();
         response.setId(user.getId());
         response.setEmail(user.getEmail());
         response.setUserName(user.getUserName());
         return ResponseEntity.ok(response);
     }
-}
\ No newline at end of file
+
+    /**
+     * 指定されたユーザーの投稿一覧を1ページ分取得する（新しい順）
+     *
+     * @param id     ユーザーのID
+     * @param cursor 前のページで返却されたカーソル（先頭ページを取得する場合は省略する）
+     * @param size   1ページあたりの件数（省略時はデフォルト値）
+     * @return 1ページ分の投稿と次のページのカーソルを含む HTTP レスポンス（ステータスコード 200）
+     *         ユーザーが存在しない場合は 404 Not Found を返す
+     */
+    @GetMapping("/{id}/posts")
+    public ResponseEntity<PostPageResponseDto> getUserPosts(@PathVariable Long id,
+            @RequestParam(required = false) String cursor, @RequestParam(required = false) Integer size) {
+        return postService.getUserPosts(id, cursor, size)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * ログイン中のユーザーの投稿一覧を1ページ分取得する（新しい順）
+     *
+     * @param cursor         前のページで返却されたカーソル（先頭ページを取得する場合は省略する）
+     * @param size           1ページあたりの件数（省略時はデフォルト値）
+     * @param authentication ログイン済みユーザーの認証情報
+     * @return 1ページ分の投稿と次のページのカーソルを含む HTTP レスポンス（ステータスコード 200）
+     */
+    @PreAuthorize("isAuthenticated()")
+    @GetMapping("/me/posts")
+    public ResponseEntity<PostPageResponseDto> getMyPosts(@RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size, Authentication authentication) {
+        LoginUser user = (LoginUser) authentication.getPrincipal();
+        return getUserPosts(user.getId(), cursor, size);
+    }
+}
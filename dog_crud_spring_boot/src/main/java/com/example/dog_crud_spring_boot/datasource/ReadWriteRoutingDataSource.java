@@ -0,0 +1,60 @@
+package com.example.dog_crud_spring_boot.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * 読み取り専用のトランザクション（{@code @Transactional(readOnly = true)}）をレプリカに、
+ * それ以外（更新を行うトランザクション、トランザクション外の処理）をプライマリに振り分けるデータソース
+ * ※接続先はトランザクションの開始後に決める必要があるため、必ず
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy} で包んで使用すること
+ * ※JPAのトランザクションでは、{@link ReplicaAwareJpaDialect} が開始時に決めた接続先を使用する
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    /** トランザクションの開始時に決めた接続先を、トランザクションのリソースとして保持する際のキー */
+    static final Object TARGET_RESOURCE_KEY = ReadWriteRoutingDataSource.class.getName() + ".TARGET";
+
+    /** 接続先 */
+    enum Target {
+        PRIMARY, REPLICA
+    }
+
+    private final ReplicaReadPolicy replicaReadPolicy;
+
+    /**
+     * コンストラクタ
+     *
+     * @param primary           プライマリ（更新を行う接続先）
+     * @param replica           レプリカ（読み取り専用の接続先）
+     * @param replicaReadPolicy レプリカから読み取ってよいかを判定するポリシー
+     */
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, ReplicaReadPolicy replicaReadPolicy) {
+        this.replicaReadPolicy = replicaReadPolicy;
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Object target = TransactionSynchronizationManager.getResource(TARGET_RESOURCE_KEY);
+        if (target != null) {
+            return target;
+        }
+        return determineTarget(TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+    }
+
+    /**
+     * トランザクションの接続先を決める
+     *
+     * @param readOnly 読み取り専用のトランザクションか
+     * @return 接続先
+     */
+    Target determineTarget(boolean readOnly) {
+        return readOnly && replicaReadPolicy.canReadFromReplica() ? Target.REPLICA : Target.PRIMARY;
+    }
+}
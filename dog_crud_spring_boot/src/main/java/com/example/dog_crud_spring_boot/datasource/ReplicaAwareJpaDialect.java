@@ -0,0 +1,101 @@
+package com.example.dog_crud_spring_boot.datasource;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.SQLException;
+
+/**
+ * レプリカから読み取るJPAのトランザクションで、2次キャッシュ、クエリキャッシュに読み取った結果を格納しないようにするJpaDialect
+ * レプリカは複製が遅れている場合があるため、レプリカから読み取った古い結果を格納すると、キャッシュの期限が切れるまで
+ * （またはテーブルが次に更新されるまで）古い結果が返ってしまう（登録直後のユーザーがログインできないなど）。
+ * そのため、トランザクションの開始時に接続先を決め、レプリカの場合はキャッシュからの取得のみを行う（{@link CacheMode#GET}）。
+ * ※キャッシュへの格納はプライマリから読み取るトランザクション（更新を行うトランザクションを含む）でのみ行われる
+ */
+public class ReplicaAwareJpaDialect extends HibernateJpaDialect {
+
+    private final ReadWriteRoutingDataSource routingDataSource;
+
+    /**
+     * コンストラクタ
+     *
+     * @param routingDataSource プライマリとレプリカに振り分けるデータソース（接続先の決定に使用する）
+     */
+    public ReplicaAwareJpaDialect(ReadWriteRoutingDataSource routingDataSource) {
+        this.routingDataSource = routingDataSource;
+    }
+
+    @Override
+    public Object beginTransaction(EntityManager entityManager, TransactionDefinition definition)
+            throws PersistenceException, SQLException, TransactionException {
+        // 中断された外側のトランザクション（REQUIRES_NEWの場合）の接続先は、このトランザクションの終了後に戻す
+        Object outerTarget = TransactionSynchronizationManager
+                .unbindResourceIfPossible(ReadWriteRoutingDataSource.TARGET_RESOURCE_KEY);
+        ReadWriteRoutingDataSource.Target target = routingDataSource.determineTarget(definition.isReadOnly());
+        TransactionSynchronizationManager.bindResource(ReadWriteRoutingDataSource.TARGET_RESOURCE_KEY, target);
+
+        Session session = entityManager.unwrap(Session.class);
+        ReplicaTransactionData transactionData = new ReplicaTransactionData(session, session.getCacheMode(),
+                outerTarget);
+        if (target == ReadWriteRoutingDataSource.Target.REPLICA) {
+            session.setCacheMode(CacheMode.GET);
+        }
+        try {
+            transactionData.delegate = super.beginTransaction(entityManager, definition);
+        } catch (RuntimeException | SQLException e) {
+            transactionData.restore();
+            throw e;
+        }
+        return transactionData;
+    }
+
+    @Override
+    public void cleanupTransaction(Object transactionData) {
+        if (transactionData instanceof ReplicaTransactionData data) {
+            super.cleanupTransaction(data.delegate);
+            data.restore();
+        } else {
+            super.cleanupTransaction(transactionData);
+        }
+    }
+
+    /**
+     * トランザクションの終了時に元に戻す状態
+     */
+    private static final class ReplicaTransactionData {
+
+        private final Session session;
+        private final CacheMode previousCacheMode;
+        private final Object outerTarget;
+
+        /** HibernateJpaDialectが返したトランザクションのデータ */
+        private Object delegate;
+
+        ReplicaTransactionData(Session session, CacheMode previousCacheMode, Object outerTarget) {
+            this.session = session;
+            this.previousCacheMode = previousCacheMode;
+            this.outerTarget = outerTarget;
+        }
+
+        /**
+         * セッションのキャッシュの使用方法と、外側のトランザクションの接続先を元に戻す
+         */
+        void restore() {
+            if (session.isOpen()) {
+                session.setCacheMode(previousCacheMode);
+            }
+            TransactionSynchronizationManager.unbindResourceIfPossible(ReadWriteRoutingDataSource.TARGET_RESOURCE_KEY);
+            if (outerTarget != null) {
+                TransactionSynchronizationManager.bindResource(ReadWriteRoutingDataSource.TARGET_RESOURCE_KEY,
+                        outerTarget);
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.dog_crud_spring_boot.datasource;
+
+import com.example.dog_crud_spring_boot.event.PostChangedEvent;
+import com.example.dog_crud_spring_boot.security.LoginUser;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * 読み取り専用のトランザクションをレプリカで実行してよいかを判定するポリシー
+ * 以下の場合はレプリカの複製の遅れによって古いデータが返らないよう、プライマリから読み取る。
+ * ・投稿を作成、更新、削除したユーザーの、その後一定期間（read-your-writes-window）のリクエスト
+ * ・レプリカの複製の遅れ（lag-queryで取得する）が上限（max-lag）を超えている間、または遅れを取得できない間のすべてのリクエスト
+ */
+public class ReplicaReadPolicy {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaReadPolicy.class);
+
+    /** 直近に更新を行ったユーザーの件数の上限（超えた場合は古いものから破棄する） */
+    private static final long MAX_RECENT_WRITERS = 100_000;
+
+    private final Cache<Long, Boolean> recentWriters;
+    private final JdbcTemplate replicaJdbcTemplate;
+    private final String lagQuery;
+    private final Duration maxLag;
+
+    /** 直近に取得したレプリカの複製の遅れ（秒）。取得していない場合は0、取得に失敗した場合は-1 */
+    private volatile double lagSeconds;
+
+    /** レプリカの複製の遅れが上限を超えているか（または遅れを取得できないか） */
+    private volatile boolean replicaLagging;
+
+    /**
+     * コンストラクタ
+     *
+     * @param replica              レプリカ（複製の遅れの取得に使用する）
+     * @param readYourWritesWindow 更新を行ったユーザーの読み取りをプライマリで行う期間（想定される複製の遅れより長くすること）
+     * @param lagQuery             レプリカの複製の遅れ（秒）を取得するSQL（空の場合は取得しない）
+     * @param maxLag               レプリカから読み取ってよい複製の遅れの上限
+     * @param meterRegistry        複製の遅れを記録するレジストリ
+     */
+    public ReplicaReadPolicy(DataSource replica, Duration readYourWritesWindow, String lagQuery, Duration maxLag,
+            MeterRegistry meterRegistry) {
+        this.recentWriters = Caffeine.newBuilder()
+                .maximumSize(MAX_RECENT_WRITERS)
+                .expireAfterWrite(readYourWritesWindow)
+                .build();
+        this.replicaJdbcTemplate = new JdbcTemplate(replica);
+        this.lagQuery = lagQuery;
+        this.maxLag = maxLag;
+
+        Gauge.builder("datasource.replica.lag", this, policy -> policy.lagSeconds)
+                .description("レプリカの複製の遅れ（秒）。取得に失敗した場合は-1")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 現在のリクエストの読み取りをレプリカで行ってよいかを判定する
+     *
+     * @return レプリカで行ってよい場合はtrue
+     */
+    public boolean canReadFromReplica() {
+        if (replicaLagging) {
+            return false;
+        }
+        return currentUserId()
+                .map(userId -> recentWriters.getIfPresent(userId) == null)
+                .orElse(true);
+    }
+
+    /**
+     * 投稿が変更されたとき（トランザクションのコミット後）に、変更したユーザーを記録する
+     * ※コミット後のリスナーはリクエストを処理したスレッドで呼ばれるため、ログインユーザーを取得できる
+     *
+     * @param event 投稿の変更イベント
+     */
+    @TransactionalEventListener
+    public void onPostChanged(PostChangedEvent event) {
+        currentUserId().ifPresent(userId -> recentWriters.put(userId, Boolean.TRUE));
+    }
+
+    /**
+     * レプリカの複製の遅れを取得し、レプリカから読み取ってよいかを判定し直す
+     */
+    @Scheduled(fixedDelayString = "${app.datasource.replica.lag-check-interval}")
+    public void checkLag() {
+        if (lagQuery == null || lagQuery.isBlank()) {
+            return;
+        }
+        try {
+            Number lag = replicaJdbcTemplate.queryForObject(lagQuery, Number.class);
+            if (lag == null) {
+                // 複製が停止している場合（MySQLではSeconds_Behind_SourceがNULLになる）
+                markLagUnknown("レプリカの複製が停止しています");
+                return;
+            }
+            lagSeconds = lag.doubleValue();
+            boolean lagging = lagSeconds * 1000 > maxLag.toMillis();
+            if (lagging != replicaLagging) {
+                logger.warn(lagging ? "レプリカの複製の遅れが上限を超えたため、読み取りをプライマリで行います（{}秒）"
+                        : "レプリカの複製の遅れが解消したため、読み取りをレプリカで行います（{}秒）", lagSeconds);
+            }
+            replicaLagging = lagging;
+        } catch (RuntimeException e) {
+            markLagUnknown("レプリカの複製の遅れを取得できません: " + e.getMessage());
+        }
+    }
+
+    private void markLagUnknown(String reason) {
+        if (!replicaLagging) {
+            logger.warn("{}。読み取りをプライマリで行います", reason);
+        }
+        lagSeconds = -1;
+        replicaLagging = true;
+    }
+
+    private Optional<Long> currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof LoginUser loginUser) {
+            return Optional.ofNullable(loginUser.getId());
+        }
+        return Optional.empty();
+    }
+}
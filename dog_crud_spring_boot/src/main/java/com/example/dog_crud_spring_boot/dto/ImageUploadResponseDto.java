@@ -0,0 +1,15 @@
+package com.example.dog_crud_spring_boot.dto;
+
+import lombok.Data;
+
+/**
+ * 画像のアップロード結果を返すDTO
+ */
+@Data
+public class ImageUploadResponseDto {
+    /** 元画像のURL（投稿の画像のURLとして使用する） */
+    private String imageUrl;
+
+    /** サムネイルのURL（作成が終わるまでは元画像に転送される） */
+    private String thumbnailUrl;
+}
@@ -0,0 +1,26 @@
+package com.example.dog_crud_spring_boot.dto;
+
+import java.util.List;
+
+import lombok.Data;
+
+/**
+ * 投稿の一括処理で、1件ごとの処理結果を返すDTO
+ */
+@Data
+public class PostBulkItemResultDto {
+    /** リクエストの配列内の位置（0始まり） */
+    private int index;
+
+    /** 処理結果を表すHTTPステータスコード（201: 作成、200: 更新・削除、4xx、5xx: 失敗） */
+    private int status;
+
+    /** 投稿のID（作成に失敗した場合はnull） */
+    private Long id;
+
+    /** 処理後の投稿のバージョン（失敗した場合、削除した場合はnull） */
+    private Long version;
+
+    /** 失敗した理由（成功した場合はnull） */
+    private List<ErrorResponseDto> errors;
+}
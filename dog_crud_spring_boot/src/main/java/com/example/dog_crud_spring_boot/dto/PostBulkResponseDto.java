@@ -0,0 +1,20 @@
+package com.example.dog_crud_spring_boot.dto;
+
+import java.util.List;
+
+import lombok.Data;
+
+/**
+ * 投稿の一括処理の結果を返すDTO
+ */
+@Data
+public class PostBulkResponseDto {
+    /** 成功した件数 */
+    private int succeeded;
+
+    /** 失敗した件数 */
+    private int failed;
+
+    /** 1件ごとの処理結果（リクエストの配列と同じ順番） */
+    private List<PostBulkItemResultDto> results;
+}
@@ -0,0 +1,23 @@
+package com.example.dog_crud_spring_boot.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+/**
+ * 投稿の一括更新で、1件分の更新内容を受け取るDTO
+ */
+@Data
+public class PostBulkUpdateRequestDto {
+    /** 更新対象の投稿のID */
+    @NotNull(message = "投稿のIDを指定してください")
+    private Long id;
+
+    /** 編集を始めたときの投稿のバージョン（省略時は確認しない） */
+    private Long version;
+
+    /** 更新後の投稿データ */
+    @Valid
+    @NotNull(message = "更新後の投稿データを指定してください")
+    private PostRequestDto post;
+}
@@ -0,0 +1,26 @@
+package com.example.dog_crud_spring_boot.dto;
+
+import java.util.List;
+import java.util.Map;
+
+import lombok.Data;
+
+/**
+ * 投稿一覧をページ単位で返すDTO（コンパクト形式）
+ * 投稿ごとに繰り返し含まれるユーザーの情報、年齢の値は、ページごとに1回だけ辞書（IDをキーとするマップ）として返す。
+ * 次のページが存在する場合のみ nextCursor に値が設定される
+ */
+@Data
+public class PostCompactPageResponseDto {
+    /** このページの投稿（新しい順） */
+    private List<PostSummaryDto> posts;
+
+    /** このページの投稿を作成したユーザー（キーはユーザーのID） */
+    private Map<Long, UserResponseDto> users;
+
+    /** このページの投稿の年齢の値（キーは年齢のID） */
+    private Map<Long, String> ages;
+
+    /** 次のページを取得するときに指定するカーソル（次のページがない場合はnull） */
+    private String nextCursor;
+}
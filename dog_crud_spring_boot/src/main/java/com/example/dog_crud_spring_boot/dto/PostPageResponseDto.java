@@ -0,0 +1,18 @@
+package com.example.dog_crud_spring_boot.dto;
+
+import java.util.List;
+
+import lombok.Data;
+
+/**
+ * 投稿一覧をページ単位で返すDTO
+ * 次のページが存在する場合のみ nextCursor に値が設定される
+ */
+@Data
+public class PostPageResponseDto {
+    /** このページの投稿（新しい順） */
+    private List<PostResponseDto> posts;
+
+    /** 次のページを取得するときに指定するカーソル（次のページがない場合はnull） */
+    private String nextCursor;
+}
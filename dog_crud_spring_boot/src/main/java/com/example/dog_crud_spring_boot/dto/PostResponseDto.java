@@ -2,7 +2,10 @@ package com.example.dog_crud_spring_boot.dto;
 
 import java.time.LocalDateTime;
 
+import com.example.dog_crud_spring_boot.image.ImageUrls;
+
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 /**
  * 投稿の情報を返すDTO
@@ -10,6 +13,7 @@ import lombok.Data;
  * 削除日時のようなおそらく使わない値も念のため設定できるようにしている
  */
 @Data
+@NoArgsConstructor
 public class PostResponseDto {
     /** 投稿のID */
     Long id;
@@ -38,6 +42,9 @@ public class PostResponseDto {
     /** 画像のURL */
     String imageUrl;
 
+    /** サムネイルのURL（アップロードされた画像ではない場合はnullのため、画像のURLを使用すること） */
+    String thumbnailUrl;
+
     /** 作成日時 */
     LocalDateTime createdAt;
 
@@ -46,4 +53,31 @@ public class PostResponseDto {
 
     /** 削除日時 */
     LocalDateTime deletedAt;
+
+    /** バージョン（更新時にIf-Matchヘッダーで送信する値の生成に使用する） */
+    Long version;
+
+    /**
+     * JPQLのコンストラクタ式（SELECT new ...）で使用するコンストラクタ
+     * エンティティを経由せず、投稿・ユーザー・年齢を結合した1回のクエリの結果から直接DTOを生成するために使用する
+     * ※引数の順番と型はクエリのSELECT句と一致させること
+     */
+    public PostResponseDto(Long id, Long userId, String userEmail, String userName, String title, String content,
+            Long ageId, String ageValue, String imageUrl, LocalDateTime createdAt, LocalDateTime updatedAt,
+            LocalDateTime deletedAt, Long version) {
+        this.id = id;
+        this.userId = userId;
+        this.userEmail = userEmail;
+        this.userName = userName;
+        this.title = title;
+        this.content = content;
+        this.ageId = ageId;
+        this.ageValue = ageValue;
+        this.imageUrl = imageUrl;
+        this.thumbnailUrl = ImageUrls.thumbnailUrlOf(imageUrl);
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.deletedAt = deletedAt;
+        this.version = version;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,23 @@
+package com.example.dog_crud_spring_boot.dto;
+
+import java.util.List;
+
+import lombok.Data;
+
+/**
+ * 投稿の検索結果を返すDTO
+ */
+@Data
+public class PostSearchResponseDto {
+    /** このページの投稿（関連度の高い順） */
+    private List<PostResponseDto> posts;
+
+    /** 該当した投稿の件数（1000件を超える場合は下限値） */
+    private long totalHits;
+
+    /** ページ番号（0始まり） */
+    private int page;
+
+    /** 1ページあたりの件数 */
+    private int size;
+}
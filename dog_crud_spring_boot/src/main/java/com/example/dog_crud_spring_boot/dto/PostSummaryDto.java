@@ -0,0 +1,46 @@
+package com.example.dog_crud_spring_boot.dto;
+
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.Data;
+
+/**
+ * 投稿一覧（コンパクト形式）の1件分の投稿を返すDTO
+ * ユーザーの情報、年齢の値は含めず、IDのみを返す（値は {@link PostCompactPageResponseDto} の辞書から参照する）。
+ * ※値がnullの項目は出力しない
+ */
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PostSummaryDto {
+    /** 投稿のID */
+    private Long id;
+
+    /** 投稿を作成したユーザーのID */
+    private Long userId;
+
+    /** タイトル */
+    private String title;
+
+    /** 内容 */
+    private String content;
+
+    /** 年齢のID */
+    private Long ageId;
+
+    /** 画像のURL */
+    private String imageUrl;
+
+    /** サムネイルのURL（アップロードされた画像ではない場合は出力しないため、画像のURLを使用すること） */
+    private String thumbnailUrl;
+
+    /** 作成日時 */
+    private LocalDateTime createdAt;
+
+    /** 更新日時 */
+    private LocalDateTime updatedAt;
+
+    /** バージョン */
+    private Long version;
+}
@@ -0,0 +1,20 @@
+package com.example.dog_crud_spring_boot.dto;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 投稿のバージョンと更新日時のみを保持するDTO
+ * 条件付きリクエスト（If-None-Match、If-Match）で、投稿全体を取得せずに変更の有無を判定するために使用する
+ */
+@Data
+@AllArgsConstructor
+public class PostVersionDto {
+    /** バージョン */
+    private Long version;
+
+    /** 更新日時 */
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,14 @@
+package com.example.dog_crud_spring_boot.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+/**
+ * アクセストークンを再発行するときのDTO
+ */
+@Data
+public class RefreshTokenRequestDto {
+
+    @NotBlank(message = "リフレッシュトークンを指定してください")
+    private String refreshToken;
+}
@@ -0,0 +1,21 @@
+package com.example.dog_crud_spring_boot.dto;
+
+import lombok.Data;
+
+/**
+ * トークン認証（app.security.mode=token）でログイン、トークンの再発行を行ったときに返すDTO
+ */
+@Data
+public class TokenResponseDto {
+    /** APIの呼び出し時に Authorization ヘッダー（Bearer）で送信するトークン */
+    private String accessToken;
+
+    /** アクセストークンの有効期限が切れたときに、再発行のために送信するトークン */
+    private String refreshToken;
+
+    /** トークンの種類（常に Bearer） */
+    private String tokenType;
+
+    /** アクセストークンの有効期間（秒） */
+    private long expiresIn;
+}
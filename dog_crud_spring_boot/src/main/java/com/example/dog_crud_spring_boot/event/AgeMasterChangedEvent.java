@@ -0,0 +1,9 @@
+package com.example.dog_crud_spring_boot.event;
+
+/**
+ * 年齢のマスタデータ（agesテーブル）が変更されたことを通知するイベント
+ * このイベントを発行すると、{@link com.example.dog_crud_spring_boot.service.AgeCache} が保持している内容を読み込み直す。
+ * agesテーブルを変更する処理（初期データの投入など）を追加した場合は、変更後に必ず発行すること
+ */
+public record AgeMasterChangedEvent() {
+}
@@ -0,0 +1,41 @@
+package com.example.dog_crud_spring_boot.event;
+
+import java.util.List;
+
+/**
+ * 投稿が作成、更新、削除されたことを通知するイベント
+ * {@link com.example.dog_crud_spring_boot.service.PostService} が投稿を変更したときに発行する。
+ * 受け取る側は、変更が確定したあとに処理するよう @TransactionalEventListener を使用すること
+ *
+ * ※まとめて変更した場合（一括作成など）は、受け取る側がまとめて処理できるよう1つのイベントで通知する
+ *
+ * @param type    変更の種類
+ * @param postIds 変更された投稿のID
+ */
+public record PostChangedEvent(Type type, List<Long> postIds) {
+
+    /**
+     * 1件の投稿の変更を通知するイベントを生成する
+     *
+     * @param type   変更の種類
+     * @param postId 変更された投稿のID
+     * @return イベント
+     */
+    public static PostChangedEvent of(Type type, Long postId) {
+        return new PostChangedEvent(type, List.of(postId));
+    }
+
+    /**
+     * 変更の種類
+     */
+    public enum Type {
+        /** 作成 */
+        CREATED,
+
+        /** 更新 */
+        UPDATED,
+
+        /** 削除 */
+        DELETED
+    }
+}
@@ -1,13 +1,22 @@
 package com.example.dog_crud_spring_boot.handler;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.security.authorization.AuthorizationDeniedException;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 
 import com.example.dog_crud_spring_boot.dto.ErrorResponseDto;
+import com.example.dog_crud_spring_boot.image.UnsupportedImageException;
+import com.example.dog_crud_spring_boot.search.SearchIndexNotReadyException;
+import com.example.dog_crud_spring_boot.security.PasswordHashingBusyException;
+import com.example.dog_crud_spring_boot.service.InvalidRequestException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -90,9 +99,111 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(dtoList);
     }
 
+    /**
+     * パスワードのハッシュ化の待ち行列が一杯で、処理を受け付けられなかった場合の例外を処理する。
+     * 使用例：ユーザー登録が集中した場合
+     *
+     * @param ex ハッシュ化を受け付けられなかった場合にスローされる例外
+     * @return エラー内容を含むレスポンス（HTTP 429 TOO_MANY_REQUESTS）
+     */
+    @ExceptionHandler(PasswordHashingBusyException.class)
+    public ResponseEntity<List<ErrorResponseDto>> handlePasswordHashingBusyException(PasswordHashingBusyException ex) {
+        ErrorResponseDto dto = new ErrorResponseDto();
+        dto.setField("server");
+        dto.setMessage(ex.getMessage());
+
+        List<ErrorResponseDto> dtoList = new ArrayList<>();
+        dtoList.add(dto);
+
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(dtoList);
+    }
+
+    /**
+     * 認証エラー（トークンが不正な場合など）の例外を処理する。
+     *
+     * @param ex 認証に失敗した場合にスローされる例外
+     * @return エラー内容を含むレスポンス（HTTP 401 UNAUTHORIZED）
+     */
+    @ExceptionHandler(AuthenticationException.class)
+    public ResponseEntity<List<ErrorResponseDto>> handleAuthenticationFailedException(AuthenticationException ex) {
+        ErrorResponseDto dto = new ErrorResponseDto();
+        dto.setField("authentication");
+        dto.setMessage(ex.getMessage());
+
+        List<ErrorResponseDto> dtoList = new ArrayList<>();
+        dtoList.add(dto);
+
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(dtoList);
+    }
+
+    /**
+     * 他のユーザーの更新と競合した場合（楽観的ロックの失敗）の例外を処理する
+     * If-Matchヘッダーを指定したリクエストでは、条件を満たさなかったものとして 412 を返す
+     *
+     * @param ex      楽観的ロックの失敗による例外
+     * @param request リクエスト（If-Matchヘッダーの有無の確認に使用する）
+     * @return エラー内容を含むレスポンス（HTTP 412 PRECONDITION_FAILED、If-Matchがない場合は HTTP 409 CONFLICT）
+     */
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<List<ErrorResponseDto>> handleOptimisticLockingFailureException(
+            ObjectOptimisticLockingFailureException ex, WebRequest request) {
+        ErrorResponseDto dto = new ErrorResponseDto();
+        dto.setField("version");
+        dto.setMessage("他の操作により投稿が更新されています。最新の内容を確認してください");
+
+        List<ErrorResponseDto> dtoList = new ArrayList<>();
+        dtoList.add(dto);
+
+        HttpStatus status = request.getHeader(HttpHeaders.IF_MATCH) != null
+                ? HttpStatus.PRECONDITION_FAILED
+                : HttpStatus.CONFLICT;
+        return ResponseEntity.status(status).body(dtoList);
+    }
+
+    /**
+     * アップロードされたファイルが画像として扱えない場合の例外を処理する
+     *
+     * @param ex 対応していない形式、または大きすぎる画像の場合の例外
+     * @return エラー内容を含むレスポンス（HTTP 415 UNSUPPORTED_MEDIA_TYPE）
+     */
+    @ExceptionHandler(UnsupportedImageException.class)
+    public ResponseEntity<List<ErrorResponseDto>> handleUnsupportedImageException(UnsupportedImageException ex) {
+        ErrorResponseDto dto = new ErrorResponseDto();
+        dto.setField("image");
+        dto.setMessage(ex.getMessage());
+
+        List<ErrorResponseDto> dtoList = new ArrayList<>();
+        dtoList.add(dto);
+
+        return ResponseEntity.status(HttpStatus.UNSUPPORTED_MEDIA_TYPE).body(dtoList);
+    }
+
+    /**
+     * アップロードされたファイルのサイズが上限を超えた場合の例外を処理する
+     *
+     * @param ex ファイルサイズの上限（spring.servlet.multipart.max-file-size）を超えた場合の例外
+     * @return エラー内容を含むレスポンス（HTTP 413 PAYLOAD_TOO_LARGE）
+     */
+    @ExceptionHandler(MaxUploadSizeExceededException.class)
+    public ResponseEntity<List<ErrorResponseDto>> handleMaxUploadSizeExceededException(
+            MaxUploadSizeExceededException ex) {
+        ErrorResponseDto dto = new ErrorResponseDto();
+        dto.setField("image");
+        dto.setMessage("画像のファイルサイズが大きすぎます");
+
+        List<ErrorResponseDto> dtoList = new ArrayList<>();
+        dtoList.add(dto);
+
+        return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(dtoList);
+    }
+
     /**
      * リクエスト内容が不正な場合の例外を処理する。
-     * 使用例：すでに登録されているメールアドレスでのユーザー登録リクエスト
+     * 使用例：すでに登録されているメールアドレスでのユーザー登録リクエスト、不正なカーソル、ページ番号
+     * ※項目名は {@link InvalidRequestException} が保持するもの（email、cursor、keyword など）を返し、
+     * それ以外のIllegalArgumentExceptionでは項目を特定できないため「request」とする
      * 
      * @param ex クライアントの論理的な入力ミスによる例外
      * @return エラー内容を含むレスポンス（HTTP 400 BAD_REQUEST）
@@ -100,7 +211,7 @@ public class GlobalExceptionHandler {
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<List<ErrorResponseDto>> handleIllegalArgumentException(IllegalArgumentException ex) {
         ErrorResponseDto dto = new ErrorResponseDto();
-        dto.setField("email");
+        dto.setField(ex instanceof InvalidRequestException invalid ? invalid.getField() : "request");
         dto.setMessage(ex.getMessage());
 
         List<ErrorResponseDto> dtoList = new ArrayList<>();
@@ -109,6 +220,26 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(dtoList);
     }
 
+    /**
+     * 起動時の検索インデックスの作成が終わっておらず、検索できない場合の例外を処理する
+     *
+     * @param ex 検索インデックスの作成中にスローされる例外
+     * @return エラー内容を含むレスポンス（HTTP 503 SERVICE_UNAVAILABLE）
+     */
+    @ExceptionHandler(SearchIndexNotReadyException.class)
+    public ResponseEntity<List<ErrorResponseDto>> handleSearchIndexNotReadyException(SearchIndexNotReadyException ex) {
+        ErrorResponseDto dto = new ErrorResponseDto();
+        dto.setField("server");
+        dto.setMessage(ex.getMessage());
+
+        List<ErrorResponseDto> dtoList = new ArrayList<>();
+        dtoList.add(dto);
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .body(dtoList);
+    }
+
     /**
      * その他すべての例外を一括処理する
      *
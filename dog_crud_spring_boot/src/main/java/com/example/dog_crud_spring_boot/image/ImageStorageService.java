@@ -0,0 +1,395 @@
+package com.example.dog_crud_spring_boot.image;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * アップロードされた画像をローカルディスクに保存し、サムネイルを作成するサービスクラス
+ * 画像は内容のハッシュ値（SHA-256）をファイル名にして保存するため、同じ画像が何度アップロードされても1つだけ保存される。
+ * また、内容が変わればURLも変わるため、配信時は長期間キャッシュさせることができる。
+ * サムネイルの作成はCPUとメモリを多く使うため、リクエストを処理するスレッドではなく、数を制限した専用のスレッドで行う。
+ */
+@Service
+public class ImageStorageService implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageStorageService.class);
+
+    private static final String UNSUPPORTED_FORMAT = "JPEG、PNG、GIF形式の画像を選択してください";
+    private static final String TOO_LARGE = "画像のサイズが大きすぎます";
+    private static final String THUMBNAIL_FORMAT = "jpeg";
+    private static final String THUMBNAIL_EXTENSION = "jpg";
+    private static final float THUMBNAIL_QUALITY = 0.8f;
+    private static final String METRIC_NAME = "images.thumbnail";
+
+    /** 受け付ける画像の形式（ImageIOの形式名）と、保存するときの拡張子 */
+    private static final Map<String, String> EXTENSIONS = Map.of("jpeg", "jpg", "png", "png", "gif", "gif");
+
+    /** 拡張子ごとの配信時のContent-Type */
+    private static final Map<String, MediaType> MEDIA_TYPES = Map.of(
+            "jpg", MediaType.IMAGE_JPEG,
+            "png", MediaType.IMAGE_PNG,
+            "gif", MediaType.IMAGE_GIF);
+
+    /** 画像のハッシュ値の形式（ファイルのパスに使用するため、これ以外の値は受け付けない） */
+    private static final Pattern HASH = Pattern.compile("^[0-9a-f]{64}$");
+
+    private final Path originalsDir;
+    private final Path thumbnailsDir;
+    private final Path tmpDir;
+    private final int thumbnailSize;
+    private final long maxPixels;
+    private final ThreadPoolExecutor executor;
+    private final Counter rejectedCounter;
+
+    /** サムネイルを作成中の画像のハッシュ値（同じ画像のサムネイルを重複して作成しないため） */
+    private final Set<String> inProgress = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 保存されている画像
+     *
+     * @param hash      画像の内容のハッシュ値
+     * @param extension 拡張子
+     */
+    public record StoredImage(String hash, String extension) {
+
+        /**
+         * @return 画像のファイル名（{ハッシュ値}.{拡張子}）
+         */
+        public String fileName() {
+            return hash + "." + extension;
+        }
+    }
+
+    /**
+     * コンストラクタ
+     *
+     * @param storageDir    画像を保存するディレクトリ
+     * @param thumbnailSize サムネイルの長辺のピクセル数
+     * @param maxPixels     受け付ける画像の最大ピクセル数（幅×高さ）
+     * @param threads       サムネイルを作成するスレッド数
+     * @param queueCapacity サムネイルの作成を待つ画像の上限
+     * @param meterRegistry 待ち行列の長さなどを記録するレジストリ
+     * @throws IOException 保存先のディレクトリを作成できなかった場合
+     */
+    public ImageStorageService(@Value("${app.images.storage-dir}") Path storageDir,
+            @Value("${app.images.thumbnail-size}") int thumbnailSize,
+            @Value("${app.images.max-pixels}") long maxPixels,
+            @Value("${app.images.thumbnail-threads}") int threads,
+            @Value("${app.images.thumbnail-queue-capacity}") int queueCapacity,
+            MeterRegistry meterRegistry) throws IOException {
+        this.originalsDir = Files.createDirectories(storageDir.resolve("originals"));
+        this.thumbnailsDir = Files.createDirectories(storageDir.resolve("thumbnails"));
+        this.tmpDir = Files.createDirectories(storageDir.resolve("tmp"));
+        this.thumbnailSize = thumbnailSize;
+        this.maxPixels = maxPixels;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("image-thumbnail-"),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.rejectedCounter = Counter.builder(METRIC_NAME + ".rejected")
+                .description("待ち行列が一杯で後回しにしたサムネイルの作成の数")
+                .register(meterRegistry);
+        Gauge.builder(METRIC_NAME + ".queue", executor, e -> e.getQueue().size())
+                .description("サムネイルの作成の待ち行列の長さ")
+                .register(meterRegistry);
+    }
+
+    /**
+     * アップロードされた画像を保存し、サムネイルの作成を予約する
+     * 同じ内容の画像が保存済みの場合は、新たに保存せず保存済みの画像を返す。
+     *
+     * @param file アップロードされたファイル
+     * @return 保存された画像
+     * @throws UnsupportedImageException 対応していない形式、または大きすぎる画像の場合
+     * @throws IOException               ファイルの読み書きに失敗した場合
+     */
+    public StoredImage store(MultipartFile file) throws IOException {
+        // ファイルを一時ファイルに書き出しながらハッシュ値を計算する（メモリに全体を読み込まないため）
+        Path tmpFile = Files.createTempFile(tmpDir, "upload-", ".tmp");
+        try {
+            MessageDigest digest = sha256();
+            try (InputStream in = file.getInputStream();
+                    OutputStream out = new DigestOutputStream(Files.newOutputStream(tmpFile), digest)) {
+                in.transferTo(out);
+            }
+            StoredImage image = new StoredImage(HexFormat.of().formatHex(digest.digest()), detectExtension(tmpFile));
+
+            Path original = originalPath(image);
+            if (Files.isRegularFile(original)) {
+                logger.debug("保存済みの画像がアップロードされました: {}", image.fileName());
+            } else {
+                // 同時に同じ画像がアップロードされた場合も、内容は同じため上書きされて問題ない
+                Files.createDirectories(original.getParent());
+                Files.move(tmpFile, original, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            scheduleThumbnail(image);
+            return image;
+        } finally {
+            Files.deleteIfExists(tmpFile);
+        }
+    }
+
+    /**
+     * 保存されている元画像のファイルを取得する
+     *
+     * @param fileName ファイル名（{ハッシュ値}.{拡張子}）
+     * @return 元画像（存在しない場合は空）
+     */
+    public Optional<StoredImage> findOriginal(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        if (dot < 0) {
+            return Optional.empty();
+        }
+        StoredImage image = new StoredImage(fileName.substring(0, dot), fileName.substring(dot + 1));
+        if (!HASH.matcher(image.hash()).matches() || !MEDIA_TYPES.containsKey(image.extension())
+                || !Files.isRegularFile(originalPath(image))) {
+            return Optional.empty();
+        }
+        return Optional.of(image);
+    }
+
+    /**
+     * 保存されている元画像を、ハッシュ値から取得する
+     *
+     * @param hash 画像のハッシュ値
+     * @return 元画像（存在しない場合は空）
+     */
+    public Optional<StoredImage> findOriginalByHash(String hash) {
+        if (!HASH.matcher(hash).matches()) {
+            return Optional.empty();
+        }
+        return EXTENSIONS.values().stream()
+                .map(extension -> new StoredImage(hash, extension))
+                .filter(image -> Files.isRegularFile(originalPath(image)))
+                .findFirst();
+    }
+
+    /**
+     * サムネイルのファイルを取得する
+     * まだ作成されていない場合は、作成を予約したうえで空を返す（後回しにされていた場合もここで作成される）
+     *
+     * @param hash 画像のハッシュ値
+     * @return サムネイルのファイル（作成中、または画像が存在しない場合は空）
+     */
+    public Optional<Path> findThumbnail(String hash) {
+        if (!HASH.matcher(hash).matches()) {
+            return Optional.empty();
+        }
+        Path thumbnail = thumbnailPath(hash);
+        if (Files.isRegularFile(thumbnail)) {
+            return Optional.of(thumbnail);
+        }
+        findOriginalByHash(hash).ifPresent(this::scheduleThumbnail);
+        return Optional.empty();
+    }
+
+    /**
+     * @param image 保存されている画像
+     * @return 元画像のファイルのパス
+     */
+    public Path originalPath(StoredImage image) {
+        return originalsDir.resolve(image.hash().substring(0, 2)).resolve(image.fileName());
+    }
+
+    /**
+     * @param image 保存されている画像
+     * @return 元画像を配信するときのContent-Type
+     */
+    public MediaType mediaTypeOf(StoredImage image) {
+        return MEDIA_TYPES.get(image.extension());
+    }
+
+    /**
+     * @return サムネイルを配信するときのContent-Type
+     */
+    public MediaType thumbnailMediaType() {
+        return MediaType.IMAGE_JPEG;
+    }
+
+    /**
+     * アプリケーションの終了時に、サムネイルを作成するスレッドを停止する
+     * ※作成されなかったサムネイルは、次に要求されたときに作成される
+     */
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * サムネイルの作成を予約する（作成済み、作成中の場合は何もしない）
+     * 待ち行列が一杯の場合は後回しにし、サムネイルが要求されるまでは元画像で代用する。
+     */
+    private void scheduleThumbnail(StoredImage image) {
+        if (Files.isRegularFile(thumbnailPath(image.hash())) || !inProgress.add(image.hash())) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    createThumbnail(image);
+                } catch (IOException | RuntimeException e) {
+                    logger.warn("サムネイルの作成に失敗しました: {}", image.fileName(), e);
+                } finally {
+                    inProgress.remove(image.hash());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inProgress.remove(image.hash());
+            rejectedCounter.increment();
+        }
+    }
+
+    /**
+     * 元画像を縮小し、サムネイルを作成する
+     * 大きな画像は読み込むときに間引く（サブサンプリング）ことで、デコードにかかる時間とメモリを抑える。
+     * ※WebPはJDKの標準機能で書き出せないため、サムネイルはJPEGで作成する
+     */
+    private void createThumbnail(StoredImage image) throws IOException {
+        BufferedImage source;
+        try (ImageInputStream in = ImageIO.createImageInputStream(originalPath(image).toFile())) {
+            ImageReader reader = firstReader(in);
+            try {
+                reader.setInput(in, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                int subsampling = Math.max(1, Math.max(width, height) / (thumbnailSize * 2));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                source = reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+
+        double scale = Math.min(1.0, (double) thumbnailSize / Math.max(source.getWidth(), source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+
+        // JPEGは透過に対応していないため、背景を白で塗りつぶしてから描画する
+        BufferedImage thumbnail = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = thumbnail.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, Color.WHITE, null);
+        } finally {
+            graphics.dispose();
+        }
+
+        // 書き込み途中のファイルが配信されないよう、一時ファイルに書き出してから移動する
+        Path tmpFile = Files.createTempFile(tmpDir, "thumbnail-", ".tmp");
+        try {
+            ImageWriter writer = ImageIO.getImageWritersByFormatName(THUMBNAIL_FORMAT).next();
+            try (ImageOutputStream out = ImageIO.createImageOutputStream(tmpFile.toFile())) {
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(THUMBNAIL_QUALITY);
+                writer.setOutput(out);
+                writer.write(null, new IIOImage(thumbnail, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+            Path target = thumbnailPath(image.hash());
+            Files.createDirectories(target.getParent());
+            Files.move(tmpFile, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmpFile);
+        }
+    }
+
+    /**
+     * ファイルの中身から画像の形式を判定し、保存するときの拡張子を返す
+     * ※クライアントが送ってきたファイル名やContent-Typeは信用しない
+     */
+    private String detectExtension(Path file) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+            ImageReader reader = firstReader(in);
+            try {
+                String extension = EXTENSIONS.get(reader.getFormatName().toLowerCase(Locale.ROOT));
+                if (extension == null) {
+                    throw new UnsupportedImageException(UNSUPPORTED_FORMAT);
+                }
+                // 画像のサイズはヘッダーのみを読んで確認する（巨大な画像をデコードしてメモリを使い切ることを防ぐため）
+                reader.setInput(in, true, true);
+                if ((long) reader.getWidth(0) * reader.getHeight(0) > maxPixels) {
+                    throw new UnsupportedImageException(TOO_LARGE);
+                }
+                return extension;
+            } catch (IOException e) {
+                throw new UnsupportedImageException(UNSUPPORTED_FORMAT);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * 画像を読み込むためのリーダーを取得する
+     */
+    private static ImageReader firstReader(ImageInputStream in) {
+        Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+        if (readers == null || !readers.hasNext()) {
+            throw new UnsupportedImageException(UNSUPPORTED_FORMAT);
+        }
+        return readers.next();
+    }
+
+    private Path thumbnailPath(String hash) {
+        return thumbnailsDir.resolve(hash.substring(0, 2)).resolve(hash + "." + THUMBNAIL_EXTENSION);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256はすべてのJava実行環境で利用できるため、発生しない
+            throw new IllegalStateException(e);
+        }
+    }
+}
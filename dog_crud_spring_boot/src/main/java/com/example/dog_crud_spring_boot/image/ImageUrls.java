@@ -0,0 +1,34 @@
+package com.example.dog_crud_spring_boot.image;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * アップロードされた画像のURLを組み立てるクラス
+ * 元画像は「/api/images/{ハッシュ値}.{拡張子}」、サムネイルは「/api/images/{ハッシュ値}/thumbnail」で配信する。
+ */
+public final class ImageUrls {
+
+    /** 画像を配信するAPIのパス */
+    public static final String BASE_PATH = "/api/images";
+
+    /** アップロードされた元画像のURL（ホスト名の部分は問わない） */
+    private static final Pattern ORIGINAL_URL = Pattern.compile("^(.*" + BASE_PATH + "/)([0-9a-f]{64})\\.[a-z]+$");
+
+    private ImageUrls() {
+    }
+
+    /**
+     * 元画像のURLから、サムネイルのURLを求める
+     *
+     * @param imageUrl 画像のURL
+     * @return サムネイルのURL（アップロードされた画像ではない場合はnull）
+     */
+    public static String thumbnailUrlOf(String imageUrl) {
+        if (imageUrl == null) {
+            return null;
+        }
+        Matcher matcher = ORIGINAL_URL.matcher(imageUrl);
+        return matcher.matches() ? matcher.group(1) + matcher.group(2) + "/thumbnail" : null;
+    }
+}
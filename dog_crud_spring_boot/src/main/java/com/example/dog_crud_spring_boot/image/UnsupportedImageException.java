@@ -0,0 +1,17 @@
+package com.example.dog_crud_spring_boot.image;
+
+/**
+ * アップロードされたファイルが画像として扱えない場合にスローされる例外
+ * （対応していない形式、壊れたファイル、大きすぎる画像など）
+ */
+public class UnsupportedImageException extends RuntimeException {
+
+    /**
+     * コンストラクタ
+     *
+     * @param message クライアントに返すメッセージ
+     */
+    public UnsupportedImageException(String message) {
+        super(message);
+    }
+}
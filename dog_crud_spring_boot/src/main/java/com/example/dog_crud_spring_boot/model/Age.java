@@ -2,7 +2,12 @@ package com.example.dog_crud_spring_boot.model;
 
 import jakarta.persistence.*;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 @Entity
+@Cacheable // 投稿の年齢として頻繁に読み込まれるため、2次キャッシュに保持する
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY) // マスタデータのため更新しない（更新しようとすると例外となる）
 @Table(name = "ages")
 public class Age {
 
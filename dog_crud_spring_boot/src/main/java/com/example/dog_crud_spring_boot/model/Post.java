@@ -2,18 +2,59 @@ package com.example.dog_crud_spring_boot.model;
 
 import jakarta.persistence.*;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.SQLRestriction;
+
 import java.time.LocalDateTime;
 
+/**
+ * 投稿
+ * ※削除は削除日時を設定する論理削除とし、削除済みの投稿はすべての読み取り処理（JPQL、IDによる取得）から除外される。
+ * 削除済みの投稿は {@link com.example.dog_crud_spring_boot.service.PostPurgeService} が一定期間後に物理削除する
+ * ※更新時は変更された項目のみをUPDATE文に含める（書き込む量と行ロックの時間を減らすため）
+ * ※IDによる取得は2次キャッシュから行われる。2次キャッシュからの取得には@SQLRestrictionの条件が適用されないため、
+ * IDで取得した場合は削除日時を確認すること
+ */
 @Entity
-@Table(name = "posts")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE) // 更新されるため、更新中の値が読まれないようロックする方式とする
+@DynamicUpdate
+@SQLRestriction("deleted_at IS NULL")
+@Table(name = "posts", indexes = {
+        // フィードのキーセットページング（作成日時、IDの降順）で使用するインデックス
+        // ※MySQLには部分インデックスがないため、削除日時を先頭に含める。削除されていない投稿（deleted_at IS NULL）が
+        // インデックス上で連続して並ぶため、削除済みの投稿を読み飛ばさずにページングできる。また、物理削除の対象の検索にも使用する
+        @Index(name = "idx_posts_deleted_at_created_at_id", columnList = "deleted_at, created_at, id"),
+        // ユーザーごとの投稿一覧のキーセットページングで使用するインデックス（削除日時を含める理由は上と同じ）
+        // ※ユーザーIDが先頭のため、外部キー（user_id）のインデックスとしても使用される
+        @Index(name = "idx_posts_user_id_deleted_at_created_at_id", columnList = "user_id, deleted_at, created_at, id")
+})
 public class Post {
 
+    /** IDを採番するシーケンスの名前（MySQLにはシーケンスがないため、同名のテーブルで代用される） */
+    public static final String ID_SEQUENCE = "posts_seq";
+
+    /** 1回の採番で確保するIDの数 */
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    /**
+     * ID
+     * ※IDENTITY（AUTO_INCREMENT）ではINSERTしないとIDが決まらず、HibernateがINSERTをまとめて実行（バッチ処理）できないため、
+     * シーケンスからまとめてIDを確保する（pooled）方式とする
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+    @SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
-    /** 投稿者（Userエンティティと多対一で紐づく） */
-    @ManyToOne // 多対一のリレーション（投稿：ユーザー = 多：1）
+    /**
+     * 投稿者（Userエンティティと多対一で紐づく）
+     * ※一覧取得時に投稿ごとにユーザーを取得するクエリが発行されないよう遅延読み込みとする。
+     * 一覧表示には {@link com.example.dog_crud_spring_boot.repository.PostRepository} の結合クエリを使用すること
+     */
+    @ManyToOne(fetch = FetchType.LAZY) // 多対一のリレーション（投稿：ユーザー = 多：1）
     @JoinColumn(name = "user_id") // 外部キーとして user_id カラムと結びつける
     private User user;
 
@@ -23,7 +64,8 @@ public class Post {
     @Column(nullable = false, length = 100)
     private String content;
 
-    @ManyToOne(fetch = FetchType.EAGER, optional = false)
+    /** 犬の年齢（投稿者と同様に遅延読み込みとする） */
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "age_id", nullable = false)
     private Age age;
 
@@ -43,6 +85,14 @@ public class Post {
     @Column(name = "deleted_at")
     private LocalDateTime deletedAt;
 
+    /**
+     * バージョン（楽観的ロックに使用する）
+     * 更新のたびに1増え、更新時に読み込んだときの値と異なれば（他の更新が先に反映されていれば）更新は失敗する
+     */
+    @Version
+    @Column(nullable = false)
+    private long version;
+
     /** 作成時に実行される処理 作成日時、更新日時を現在時刻で設定する */
     @PrePersist
     protected void onCreate() {
@@ -110,7 +160,16 @@ public class Post {
         return updatedAt;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
     public LocalDateTime getDeletedAt() {
         return deletedAt;
     }
+
+    /** 投稿を論理削除する（削除日時を現在時刻で設定する） */
+    public void markDeleted() {
+        this.deletedAt = LocalDateTime.now();
+    }
 }
@@ -0,0 +1,49 @@
+package com.example.dog_crud_spring_boot.model;
+
+import jakarta.persistence.*;
+
+/**
+ * 投稿一覧のバージョン（投稿一覧の条件付きGETのETagに使用する）
+ * 投稿を作成、更新、削除したトランザクションが、コミットの直前にバージョンを1つ進める（1行のみのテーブル）。
+ * ※投稿の更新日時はコミット時ではなくUPDATE文の発行時に設定されるため、更新日時の最大値をバージョンとすると、
+ * 先に更新して後からコミットした変更でバージョンが変わらないことがある。この行は更新したトランザクションが
+ * コミットするまでロックされ、次のトランザクションはその後にしか進められないため、コミットの順にバージョンが進む
+ */
+@Entity
+@Table(name = PostCollectionVersion.TABLE)
+public class PostCollectionVersion {
+
+    /** テーブル名（起動時に唯一の行を作成するSQLでも使用する） */
+    public static final String TABLE = "post_collection_version";
+
+    /** 唯一の行のID */
+    public static final long SINGLETON_ID = 1L;
+
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private long version;
+
+    /**
+     * 行を作成する際に使用するコンストラクタ（通常は起動時に {@code DataInitializer} がSQLで作成する）
+     *
+     * @param version バージョンの初期値
+     */
+    public PostCollectionVersion(long version) {
+        this.id = SINGLETON_ID;
+        this.version = version;
+    }
+
+    /** JPA（リポジトリ）がデフォルトで使うコンストラクタ */
+    public PostCollectionVersion() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+}
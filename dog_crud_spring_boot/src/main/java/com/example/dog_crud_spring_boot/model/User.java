@@ -4,6 +4,9 @@ import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import jakarta.persistence.*;
+
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.Size;
@@ -16,6 +19,8 @@ import java.util.List;
  * DBの users テーブルにマッピングされ、Spring Security による認証・認可にも利用される。
  */
 @Entity // JPAのエンティティ（DBのusersテーブルに対応）
+@Cacheable // 投稿の作成者として頻繁に読み込まれるため、2次キャッシュに保持する
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE) // パスワードの再ハッシュなどで更新されるため、ロックする方式とする
 @Table(name = "users")
 public class User implements UserDetails {
 
@@ -39,7 +44,7 @@ public class User implements UserDetails {
     /** パスワード */
     @NotBlank(message = "パスワードを入力してください")
     @Size(min = 8, message = "パスワードが短すぎます")
-    @Size(min = 255, message = "パスワードが長すぎます")
+    @Size(max = 255, message = "パスワードが長すぎます")
     @Column(nullable = false, length = 255)
     private String password;
 
@@ -0,0 +1,35 @@
+package com.example.dog_crud_spring_boot.repository;
+
+import com.example.dog_crud_spring_boot.model.PostCollectionVersion;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Optional;
+
+/**
+ * 投稿一覧のバージョン {@link PostCollectionVersion} に対するデータアクセス操作を定義するリポジトリインタフェース
+ */
+public interface PostCollectionVersionRepository extends JpaRepository<PostCollectionVersion, Long> {
+
+    /**
+     * 投稿一覧のバージョンを取得する
+     *
+     * @return バージョン（まだ投稿が1件も変更されていない場合は空）
+     */
+    @Query("SELECT v.version FROM PostCollectionVersion v WHERE v.id = "
+            + PostCollectionVersion.SINGLETON_ID)
+    Optional<Long> findVersion();
+
+    /**
+     * 投稿一覧のバージョンを1つ進める
+     * ※行ロックはトランザクションのコミットまで保持されるため、コミットの直前に呼び出すこと
+     *
+     * @return 更新した行数（行がまだ作成されていない場合は0）
+     */
+    @Modifying
+    @Query("UPDATE PostCollectionVersion v SET v.version = v.version + 1 WHERE v.id = "
+            + PostCollectionVersion.SINGLETON_ID)
+    int increment();
+}
@@ -1,14 +1,142 @@
 package com.example.dog_crud_spring_boot.repository;
 
+import com.example.dog_crud_spring_boot.dto.PostResponseDto;
 import com.example.dog_crud_spring_boot.model.Post;
+
+import jakarta.persistence.QueryHint;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * 投稿エンティティ {@link Post} に対するデータアクセス操作を定義するリポジトリインタフェース
- * ※現在は、{@link JpaRepository} によって提供される基本的なCRUD操作（保存、取得、削除など）のみを使用しており、
- * このインタフェース自体には独自のメソッド定義は存在しない。
- * 今後、特定の条件による検索やカスタムクエリの追加が必要になった場合に備え、拡張可能な形で作成している。
+ * 基本的なCRUD操作は {@link JpaRepository} が提供するものを使用し、
+ * 投稿一覧（フィード）のページングなど、独自の条件による検索をここに定義する。
  */
 public interface PostRepository extends JpaRepository<Post, Long> {
-    // 追加のメソッドは現在未定義（将来の拡張用）
-}
\ No newline at end of file
+
+    /**
+     * 投稿・ユーザー・年齢を結合し、{@link PostResponseDto} を直接生成するクエリのSELECT句とFROM句
+     * ※投稿ごとにユーザーや年齢を取得するクエリ（N+1問題）が発生しないよう、読み取り処理ではこれを使用する
+     */
+    String SELECT_POST_RESPONSE_DTO = "SELECT new com.example.dog_crud_spring_boot.dto.PostResponseDto("
+            + "p.id, u.id, u.email, u.userName, p.title, p.content, a.id, a.value, p.imageUrl,"
+            + " p.createdAt, p.updatedAt, p.deletedAt, p.version)"
+            + " FROM Post p JOIN p.user u JOIN p.age a";
+
+    /**
+     * エクスポート時に1回の通信でDBから取得する行数
+     * ※MySQLでは接続URLに useCursorFetch=true を指定している場合のみ有効となり、
+     * 指定しない場合はすべての行がメモリに読み込まれてしまうため注意すること
+     */
+    String EXPORT_FETCH_SIZE = "1000";
+
+    /**
+     * すべての投稿をDTOとして取得する
+     *
+     * @return すべての投稿
+     */
+    @Query(SELECT_POST_RESPONSE_DTO)
+    List<PostResponseDto> findAllPostResponseDtos();
+
+    /**
+     * すべての投稿をDTOとして1件ずつ取得する（エクスポート用）
+     * 結果をまとめてメモリに読み込まず、サーバー側のカーソルから少しずつ取得するため、件数が多くてもメモリ使用量は一定となる。
+     * ※トランザクション内で呼び出し、使用後は必ずStreamをcloseすること
+     *
+     * @return ID順に並んだすべての投稿
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query(SELECT_POST_RESPONSE_DTO + " ORDER BY p.id")
+    Stream<PostResponseDto> streamAllPostResponseDtos();
+
+    /**
+     * 指定されたIDの投稿をDTOとしてまとめて取得する（検索結果の表示用）
+     * ※並び順は保証しないため、必要に応じて呼び出し側で並び替えること
+     *
+     * @param ids 投稿のID
+     * @return 該当する投稿
+     */
+    @Query(SELECT_POST_RESPONSE_DTO + " WHERE p.id IN :ids")
+    List<PostResponseDto> findPostResponseDtosByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * フィードの先頭ページを取得する（作成日時、IDの降順）
+     * ※件数の上限はpageableで指定する。オフセットは常に0で使用することを想定している
+     *
+     * @param pageable 取得件数の上限
+     * @return 新しい順に並んだ投稿
+     */
+    @Query(SELECT_POST_RESPONSE_DTO + " ORDER BY p.createdAt DESC, p.id DESC")
+    List<PostResponseDto> findFeedFirstPage(Pageable pageable);
+
+    /**
+     * フィードの2ページ目以降を取得する（キーセットページング）
+     * 前のページの最後の投稿（作成日時、ID）より古い投稿のみを取得するため、
+     * OFFSETを使う場合と異なり、何ページ目であってもインデックスの範囲検索で済む。
+     *
+     * @param createdAt 前のページの最後の投稿の作成日時
+     * @param id        前のページの最後の投稿のID
+     * @param pageable  取得件数の上限
+     * @return 指定された位置より古い投稿（新しい順）
+     */
+    @Query(SELECT_POST_RESPONSE_DTO
+            + " WHERE p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id)"
+            + " ORDER BY p.createdAt DESC, p.id DESC")
+    List<PostResponseDto> findFeedPageAfter(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id,
+            Pageable pageable);
+
+    /**
+     * 特定のユーザーの投稿の先頭ページを取得する（作成日時、IDの降順）
+     * ※ユーザーID、削除日時、作成日時、IDのインデックスの範囲検索で取得する
+     *
+     * @param userId   ユーザーのID
+     * @param pageable 取得件数の上限
+     * @return 新しい順に並んだ、指定されたユーザーの投稿
+     */
+    @Query(SELECT_POST_RESPONSE_DTO + " WHERE p.user.id = :userId ORDER BY p.createdAt DESC, p.id DESC")
+    List<PostResponseDto> findUserPostsFirstPage(@Param("userId") Long userId, Pageable pageable);
+
+    /**
+     * 特定のユーザーの投稿の2ページ目以降を取得する（キーセットページング）
+     *
+     * @param userId    ユーザーのID
+     * @param createdAt 前のページの最後の投稿の作成日時
+     * @param id        前のページの最後の投稿のID
+     * @param pageable  取得件数の上限
+     * @return 指定された位置より古い、指定されたユーザーの投稿（新しい順）
+     */
+    @Query(SELECT_POST_RESPONSE_DTO
+            + " WHERE p.user.id = :userId"
+            + " AND (p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id))"
+            + " ORDER BY p.createdAt DESC, p.id DESC")
+    List<PostResponseDto> findUserPostsPageAfter(@Param("userId") Long userId,
+            @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
+
+    /**
+     * 削除日時が指定された日時より前の投稿（論理削除済み）を、指定された件数まで物理削除する
+     * ※1回のトランザクションで削除する件数を制限し、行ロックを長時間保持しないようにするため、
+     * MySQLのDELETE ... LIMITを使用するネイティブクエリとしている（@SQLRestrictionの条件は適用されない）
+     * ※ネイティブクエリは対象のテーブルが分からないと2次キャッシュをすべて破棄するため、投稿のテーブルのみを対象と指定する
+     *
+     * @param threshold この日時より前に削除された投稿を対象とする
+     * @param limit     削除する件数の上限
+     * @return 削除した件数
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "posts"))
+    @Query(value = "DELETE FROM posts WHERE deleted_at < :threshold ORDER BY deleted_at LIMIT :limit",
+            nativeQuery = true)
+    int purgeDeletedBefore(@Param("threshold") LocalDateTime threshold, @Param("limit") int limit);
+}
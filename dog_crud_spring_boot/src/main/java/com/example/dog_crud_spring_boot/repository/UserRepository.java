@@ -1,9 +1,16 @@
 package com.example.dog_crud_spring_boot.repository;
 
 import com.example.dog_crud_spring_boot.model.User;
+
+import jakarta.persistence.QueryHint;
+
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * ユーザーエンティティに対するデータアクセス操作を定義するリポジトリインタフェース
@@ -13,10 +20,14 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     /**
      * 指定されたメールアドレスに一致するユーザーを検索する
+     * ※ログインのたびに実行されるため、結果をクエリキャッシュに保持する（ユーザーが登録、更新されると破棄される）
+     * レプリカから読み取った場合は、複製の遅れによる古い結果（登録直後のユーザーが見つからないなど）を保持しないよう、
+     * キャッシュからの取得のみを行う（{@link com.example.dog_crud_spring_boot.datasource.ReplicaAwareJpaDialect}）
      *
      * @param email 検索対象のメールアドレス
      * @return 該当するユーザーが存在すれば Optional に包んで返す 存在しなければ空のOptional
      */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<User> findByEmail(String email);
 
     /**
@@ -26,4 +37,14 @@ public interface UserRepository extends JpaRepository<User, Long> {
      * @return 登録されていれば true、そうでなければ false
      */
     boolean existsByEmail(String email);
-}
\ No newline at end of file
+
+    /**
+     * 登録されているすべてのメールアドレスを1件ずつ取得する（登録済みのメールアドレスのフィルタの作成用）
+     * ※トランザクション内で呼び出し、使用後は必ずStreamをcloseすること
+     *
+     * @return 登録されているすべてのメールアドレス
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT u.email FROM User u")
+    Stream<String> streamAllEmails();
+}
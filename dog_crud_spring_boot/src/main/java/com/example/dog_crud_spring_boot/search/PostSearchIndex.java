@@ -0,0 +1,279 @@
+package com.example.dog_crud_spring_boot.search;
+
+import com.example.dog_crud_spring_boot.dto.PostResponseDto;
+import com.example.dog_crud_spring_boot.event.PostChangedEvent;
+import com.example.dog_crud_spring_boot.repository.PostRepository;
+import com.example.dog_crud_spring_boot.service.InvalidRequestException;
+
+import jakarta.annotation.PreDestroy;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.ja.JapaneseAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.queryparser.classic.QueryParser;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * 投稿のタイトルと内容を対象にした全文検索のインデックス（Lucene）
+ * 投稿が作成、更新、削除されたときに {@link PostChangedEvent} を受け取ってインデックスを更新し、
+ * 検索時はDBを全件走査せずにインデックスから関連度の高い順に投稿のIDを取得する。
+ * ※インデックスはDBから作り直せるため、起動時に毎回DBの内容から作り直す（停止中の変更の取りこぼしを防ぐため）
+ * ※作り直しはリクエストを受け付けながら行うため、次のようにする
+ * ・作り直している間は検索できる状態に更新せず（途中の状態を公開しない）、最初の作り直しが終わるまでは検索を受け付けない
+ * ・作り直しは開始時点の投稿を読み込むため、その間に変更された投稿（削除された投稿を含む）は、読み込み後にDBから取得し直して反映する
+ * ・インデックスへの反映は、DBからの取得と合わせて1つずつ行う（後から取得した内容が先に取得した内容で上書きされないようにするため）
+ */
+@Component
+public class PostSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostSearchIndex.class);
+
+    private static final String FIELD_ID = "id";
+    private static final String FIELD_TITLE = "title";
+    private static final String FIELD_CONTENT = "content";
+    private static final String FIELD_AGE_ID = "ageId";
+
+    /** 関連度を計算するときの各項目の重み（タイトルに含まれる方を優先する） */
+    private static final Map<String, Float> FIELD_BOOSTS = Map.of(FIELD_TITLE, 2.0f, FIELD_CONTENT, 1.0f);
+
+    private final PostRepository postRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Analyzer analyzer;
+    private final Directory directory;
+    private final IndexWriter indexWriter;
+    private final SearcherManager searcherManager;
+
+    /** インデックスを作り直している間はtrue（このオブジェクトのロックを取得して参照、変更する） */
+    private boolean rebuilding;
+
+    /** 作り直している間に変更された投稿のID（このオブジェクトのロックを取得して参照、変更する） */
+    private final Set<Long> changedDuringRebuild = new HashSet<>();
+
+    /** 最初の作り直しが終わり、検索できる状態になった場合はtrue */
+    private volatile boolean ready;
+
+    /**
+     * 検索結果
+     *
+     * @param postIds   該当した投稿のID（関連度の高い順）
+     * @param totalHits 該当した投稿の件数（1000件を超える場合は下限値）
+     */
+    public record Result(List<Long> postIds, long totalHits) {
+    }
+
+    /**
+     * コンストラクタ
+     *
+     * @param postRepository     投稿データへのアクセスを提供するリポジトリ
+     * @param transactionManager インデックスを作り直すときに使用するトランザクションマネージャー
+     * @param indexDir           インデックスを保存するディレクトリ
+     * @throws IOException インデックスを開けなかった場合
+     */
+    public PostSearchIndex(PostRepository postRepository, PlatformTransactionManager transactionManager,
+            @Value("${app.search.index-dir}") Path indexDir) throws IOException {
+        this.postRepository = postRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+
+        // 日本語の文章を単語に分割するため、形態素解析（kuromoji）を行うアナライザーを使用する
+        this.analyzer = new JapaneseAnalyzer();
+        Files.createDirectories(indexDir);
+        this.directory = FSDirectory.open(indexDir);
+        this.indexWriter = new IndexWriter(directory,
+                new IndexWriterConfig(analyzer).setOpenMode(IndexWriterConfig.OpenMode.CREATE));
+        this.searcherManager = new SearcherManager(indexWriter, null);
+    }
+
+    /**
+     * 起動時にDBのすべての投稿からインデックスを作り直す
+     * ※作り直している間に変更された投稿は、読み込みの開始時点の内容で上書きされることがあるため、読み込み後に反映し直す
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() throws IOException {
+        synchronized (this) {
+            rebuilding = true;
+            changedDuringRebuild.clear();
+            indexWriter.deleteAll();
+        }
+        int count;
+        try {
+            count = readOnlyTransaction.execute(status -> {
+                try (Stream<PostResponseDto> posts = postRepository.streamAllPostResponseDtos()) {
+                    return posts.mapToInt(post -> {
+                        index(post);
+                        return 1;
+                    }).sum();
+                }
+            });
+        } finally {
+            synchronized (this) {
+                reapplyChangesDuringRebuild();
+                rebuilding = false;
+            }
+        }
+        searcherManager.maybeRefresh();
+        ready = true;
+        logger.info("投稿の検索インデックスを作成しました（{}件）", count);
+    }
+
+    /**
+     * 投稿の変更が確定したあとに、インデックスに反映する
+     *
+     * @param event 投稿の変更を通知するイベント
+     * @throws IOException インデックスの更新に失敗した場合
+     */
+    @TransactionalEventListener
+    public synchronized void onPostChanged(PostChangedEvent event) throws IOException {
+        if (rebuilding) {
+            changedDuringRebuild.addAll(event.postIds());
+        }
+        if (event.type() == PostChangedEvent.Type.DELETED) {
+            indexWriter.deleteDocuments(event.postIds().stream()
+                    .map(id -> new Term(FIELD_ID, String.valueOf(id)))
+                    .toArray(Term[]::new));
+        } else {
+            // まとめて変更された場合も、1回のクエリで取得する
+            postRepository.findPostResponseDtosByIdIn(event.postIds()).forEach(this::index);
+        }
+        // 作り直している間は、作り直しの途中の状態を検索に公開しない（作り直しの終了時に反映する）
+        if (!rebuilding) {
+            searcherManager.maybeRefresh();
+        }
+    }
+
+    /**
+     * キーワードに該当する投稿を関連度の高い順に検索する
+     *
+     * @param keyword キーワード（記号は検索構文として扱わず、そのまま検索する）
+     * @param ageId   年齢のID（nullの場合は絞り込まない）
+     * @param offset  取得を開始する位置
+     * @param limit   取得する件数
+     * @return 検索結果
+     * @throws InvalidRequestException      キーワードから検索条件を作成できなかった場合
+     * @throws SearchIndexNotReadyException 起動時のインデックスの作成が終わっていない場合
+     */
+    public Result search(String keyword, Long ageId, int offset, int limit) throws IOException {
+        if (!ready) {
+            throw new SearchIndexNotReadyException();
+        }
+        BooleanQuery.Builder query = new BooleanQuery.Builder()
+                .add(parse(keyword), BooleanClause.Occur.MUST);
+        if (ageId != null) {
+            // 年齢は関連度に影響させず、絞り込みのみに使用する
+            query.add(LongPoint.newExactQuery(FIELD_AGE_ID, ageId), BooleanClause.Occur.FILTER);
+        }
+
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            TopDocs topDocs = searcher.search(query.build(), offset + limit);
+            StoredFields storedFields = searcher.storedFields();
+            List<Long> postIds = new ArrayList<>();
+            ScoreDoc[] scoreDocs = topDocs.scoreDocs;
+            for (int i = offset; i < scoreDocs.length; i++) {
+                postIds.add(Long.valueOf(storedFields.document(scoreDocs[i].doc).get(FIELD_ID)));
+            }
+            return new Result(postIds, topDocs.totalHits.value);
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
+
+    /**
+     * アプリケーションの終了時にインデックスを閉じる
+     */
+    @PreDestroy
+    public void close() throws IOException {
+        searcherManager.close();
+        indexWriter.close();
+        directory.close();
+        analyzer.close();
+    }
+
+    /**
+     * 作り直している間に変更された投稿を、DBから取得し直してインデックスに反映する（このオブジェクトのロックを取得して呼び出す）
+     * 取得できなかった投稿（削除された投稿）はインデックスから削除する
+     */
+    private void reapplyChangesDuringRebuild() throws IOException {
+        if (changedDuringRebuild.isEmpty()) {
+            return;
+        }
+        Set<Long> missingIds = new HashSet<>(changedDuringRebuild);
+        changedDuringRebuild.clear();
+        for (PostResponseDto post : postRepository.findPostResponseDtosByIdIn(missingIds)) {
+            index(post);
+            missingIds.remove(post.getId());
+        }
+        indexWriter.deleteDocuments(missingIds.stream()
+                .map(id -> new Term(FIELD_ID, String.valueOf(id)))
+                .toArray(Term[]::new));
+    }
+
+    /**
+     * 投稿をインデックスに登録する（同じIDの投稿が登録済みの場合は置き換える）
+     */
+    private void index(PostResponseDto post) {
+        Document document = new Document();
+        document.add(new StringField(FIELD_ID, String.valueOf(post.getId()), Field.Store.YES));
+        document.add(new TextField(FIELD_TITLE, post.getTitle(), Field.Store.NO));
+        document.add(new TextField(FIELD_CONTENT, post.getContent(), Field.Store.NO));
+        document.add(new LongPoint(FIELD_AGE_ID, post.getAgeId()));
+        try {
+            indexWriter.updateDocument(new Term(FIELD_ID, String.valueOf(post.getId())), document);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * キーワードを検索条件に変換する（タイトル、内容のどちらかにすべての単語が含まれるものを対象とする）
+     * ※QueryParserはスレッドセーフではないため、検索のたびに生成する
+     */
+    private Query parse(String keyword) {
+        MultiFieldQueryParser parser = new MultiFieldQueryParser(new String[] { FIELD_TITLE, FIELD_CONTENT },
+                analyzer, FIELD_BOOSTS);
+        parser.setDefaultOperator(QueryParser.Operator.AND);
+        try {
+            return parser.parse(QueryParser.escape(keyword));
+        } catch (ParseException e) {
+            throw new InvalidRequestException("keyword", "検索キーワードが不正です", e);
+        }
+    }
+}
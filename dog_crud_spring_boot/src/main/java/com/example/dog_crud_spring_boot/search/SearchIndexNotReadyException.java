@@ -0,0 +1,15 @@
+package com.example.dog_crud_spring_boot.search;
+
+/**
+ * 起動時の検索インデックスの作成が終わっておらず、検索できない場合にスローされる例外
+ * （作成中のインデックスで検索すると、該当する投稿が見つからない、または一部しか見つからないため）
+ */
+public class SearchIndexNotReadyException extends RuntimeException {
+
+    /**
+     * コンストラクタ
+     */
+    public SearchIndexNotReadyException() {
+        super("検索の準備中です。しばらくしてから再度お試しください");
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.dog_crud_spring_boot.security;
+
+import com.example.dog_crud_spring_boot.dto.TokenResponseDto;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * ステートレス認証（app.security.mode=token）で使用する署名付きトークンの発行、検証を行うクラス
+ * トークンはHMAC-SHA256で署名したJWT形式（ヘッダー.ペイロード.署名）で、ユーザーID・メールアドレス・名前を含む。
+ * 検証は署名と有効期限の確認のみで行うため、DBやセッションにアクセスせず、どのサーバーでも検証できる。
+ */
+@Component
+@ConditionalOnProperty(name = "app.security.mode", havingValue = "token")
+public class AccessTokenService {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final String TOKEN_TYPE_ACCESS = "access";
+    private static final String TOKEN_TYPE_REFRESH = "refresh";
+    private static final int MIN_SECRET_BYTES = 32;
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    /** JWTのヘッダー（署名方式は固定のため、あらかじめエンコードしておく） */
+    private static final String HEADER = ENCODER
+            .encodeToString("{\"alg\":\"HS256\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8));
+
+    private final ObjectMapper objectMapper;
+    private final SecretKeySpec secretKey;
+    private final Duration accessTokenTtl;
+    private final Duration refreshTokenTtl;
+
+    /**
+     * トークンに含める情報（JWTのペイロード）
+     *
+     * @param sub   ユーザーID
+     * @param email メールアドレス
+     * @param name  名前
+     * @param typ   トークンの種類（access または refresh）
+     * @param exp   有効期限（エポック秒）
+     */
+    record Claims(Long sub, String email, String name, String typ, long exp) {
+    }
+
+    /**
+     * コンストラクタ
+     *
+     * @param objectMapper    ペイロードをJSONに変換するためのマッパー
+     * @param secret          署名に使用する秘密鍵（Base64）
+     * @param accessTokenTtl  アクセストークンの有効期間
+     * @param refreshTokenTtl リフレッシュトークンの有効期間
+     * @throws IllegalStateException 秘密鍵が指定されていない、または短すぎる場合
+     */
+    public AccessTokenService(ObjectMapper objectMapper,
+            @Value("${app.security.token.secret}") String secret,
+            @Value("${app.security.token.access-ttl}") Duration accessTokenTtl,
+            @Value("${app.security.token.refresh-ttl}") Duration refreshTokenTtl) {
+        byte[] secretBytes = Base64.getDecoder().decode(secret);
+        if (secretBytes.length < MIN_SECRET_BYTES) {
+            throw new IllegalStateException(
+                    "app.security.token.secret には" + MIN_SECRET_BYTES + "バイト以上の鍵をBase64で指定してください");
+        }
+        this.objectMapper = objectMapper;
+        this.secretKey = new SecretKeySpec(secretBytes, HMAC_ALGORITHM);
+        this.accessTokenTtl = accessTokenTtl;
+        this.refreshTokenTtl = refreshTokenTtl;
+    }
+
+    /**
+     * 指定されたユーザーのアクセストークンとリフレッシュトークンを発行する
+     *
+     * @param user トークンを発行するユーザー
+     * @return 発行したトークン
+     */
+    public TokenResponseDto issueTokens(LoginUser user) {
+        Instant now = Instant.now();
+        TokenResponseDto response = new TokenResponseDto();
+        response.setAccessToken(sign(claimsOf(user, TOKEN_TYPE_ACCESS, now.plus(accessTokenTtl))));
+        response.setRefreshToken(sign(claimsOf(user, TOKEN_TYPE_REFRESH, now.plus(refreshTokenTtl))));
+        response.setTokenType("Bearer");
+        response.setExpiresIn(accessTokenTtl.toSeconds());
+        return response;
+    }
+
+    /**
+     * アクセストークンを検証し、トークンに含まれるユーザーの認証情報を取得する
+     *
+     * @param token アクセストークン
+     * @return 認証情報（署名が不正、有効期限切れ、種類が異なる場合は空のOptional）
+     */
+    public Optional<LoginUser> verifyAccessToken(String token) {
+        return verify(token, TOKEN_TYPE_ACCESS);
+    }
+
+    /**
+     * リフレッシュトークンを検証し、トークンに含まれるユーザーの認証情報を取得する
+     *
+     * @param token リフレッシュトークン
+     * @return 認証情報（署名が不正、有効期限切れ、種類が異なる場合は空のOptional）
+     */
+    public Optional<LoginUser> verifyRefreshToken(String token) {
+        return verify(token, TOKEN_TYPE_REFRESH);
+    }
+
+    private Claims claimsOf(LoginUser user, String type, Instant expiresAt) {
+        return new Claims(user.getId(), user.getEmail(), user.getUserName(), type, expiresAt.getEpochSecond());
+    }
+
+    /**
+     * ペイロードに署名してトークンを作成する
+     */
+    private String sign(Claims claims) {
+        try {
+            String payload = ENCODER.encodeToString(objectMapper.writeValueAsBytes(claims));
+            String signingInput = HEADER + "." + payload;
+            return signingInput + "." + ENCODER.encodeToString(hmac(signingInput));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("トークンの作成に失敗しました", e);
+        }
+    }
+
+    /**
+     * トークンの署名、有効期限、種類を確認し、問題がなければ認証情報を返す
+     */
+    private Optional<LoginUser> verify(String token, String expectedType) {
+        String[] parts = token.split("\\.");
+        if (parts.length != 3 || !HEADER.equals(parts[0])) {
+            return Optional.empty();
+        }
+
+        try {
+            // 署名の比較は、処理時間から正しい署名を推測されないよう固定時間で行う
+            byte[] expectedSignature = hmac(parts[0] + "." + parts[1]);
+            if (!MessageDigest.isEqual(expectedSignature, DECODER.decode(parts[2]))) {
+                return Optional.empty();
+            }
+
+            Claims claims = objectMapper.readValue(DECODER.decode(parts[1]), Claims.class);
+            if (!expectedType.equals(claims.typ()) || Instant.now().getEpochSecond() >= claims.exp()) {
+                return Optional.empty();
+            }
+            return Optional.of(new LoginUser(claims.sub(), claims.email(), claims.name(), null));
+        } catch (IllegalArgumentException | IOException e) {
+            // Base64やJSONの形式が不正な場合
+            return Optional.empty();
+        }
+    }
+
+    private byte[] hmac(String signingInput) {
+        try {
+            // Macはスレッドセーフではないため、呼び出しごとに生成する
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(secretKey);
+            return mac.doFinal(signingInput.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("トークンの署名に失敗しました", e);
+        }
+    }
+}
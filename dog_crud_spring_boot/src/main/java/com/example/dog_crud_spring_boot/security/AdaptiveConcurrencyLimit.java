@@ -0,0 +1,122 @@
+package com.example.dog_crud_spring_boot.security;
+
+import com.example.dog_crud_spring_boot.config.ConcurrencyLimitProperties;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 同時に処理するリクエスト数の上限を、処理時間に応じて自動で増減させる（AIMD: 加算的に増やし、乗算的に減らす）
+ * ・処理時間が閾値以内で、上限の半分以上が使われている間は、上限を1ずつ増やす
+ * ・処理時間が閾値を超えた、または処理に失敗した場合は、上限に減少率を掛けて下げる
+ * DBが遅くなるとリクエストの処理時間が延びるため上限が下がり、超えたリクエストはすぐに拒否される（待たせない）。
+ * ※処理中のリクエスト数と上限はAtomicIntegerで保持し、ロックを使用せずに更新する
+ */
+public class AdaptiveConcurrencyLimit {
+
+    /**
+     * リクエストの優先度
+     */
+    public enum Priority {
+        /** 上限の一部（low-priority-share）までしか受け付けない（一覧の全件取得、一括処理など） */
+        LOW,
+
+        /** 上限まで受け付ける */
+        NORMAL,
+
+        /** 上限を超えても一定の割合（high-priority-headroom）まで受け付ける（ログイン、ログインユーザーの取得など） */
+        HIGH
+    }
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+    private final double highPriorityHeadroom;
+    private final double lowPriorityShare;
+    private final AtomicInteger limit;
+    private final AtomicInteger inflight = new AtomicInteger();
+
+    /**
+     * コンストラクタ
+     *
+     * @param settings             上限の設定
+     * @param highPriorityHeadroom 優先するリクエストを上限を超えて受け付ける割合
+     * @param lowPriorityShare     優先度を下げたリクエストに使わせる上限の割合
+     */
+    public AdaptiveConcurrencyLimit(ConcurrencyLimitProperties.Limit settings, double highPriorityHeadroom,
+            double lowPriorityShare) {
+        this.minLimit = settings.minLimit();
+        this.maxLimit = settings.maxLimit();
+        this.latencyThresholdNanos = settings.latencyThreshold().toNanos();
+        this.backoffRatio = settings.backoffRatio();
+        this.highPriorityHeadroom = highPriorityHeadroom;
+        this.lowPriorityShare = lowPriorityShare;
+        this.limit = new AtomicInteger(settings.initialLimit());
+    }
+
+    /**
+     * リクエストの処理を開始してよいかを判定し、よい場合は処理中のリクエスト数に加える
+     *
+     * @param priority リクエストの優先度
+     * @return 処理を開始してよい場合はtrue（この場合は処理の終了後に必ず {@link #release(long, boolean)} を呼び出すこと）
+     */
+    public boolean tryAcquire(Priority priority) {
+        int currentLimit = limit.get();
+        int threshold = switch (priority) {
+            case LOW -> Math.max(1, (int) (currentLimit * lowPriorityShare));
+            case NORMAL -> currentLimit;
+            case HIGH -> currentLimit + (int) Math.ceil(currentLimit * highPriorityHeadroom);
+        };
+        while (true) {
+            int current = inflight.get();
+            if (current >= threshold) {
+                return false;
+            }
+            if (inflight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * リクエストの処理の終了を記録し、処理時間に応じて上限を調整する
+     *
+     * @param latencyNanos 処理時間（ナノ秒）
+     * @param failed       処理に失敗した（5xxを返した、例外が発生した）場合はtrue
+     */
+    public void release(long latencyNanos, boolean failed) {
+        int inflightBeforeRelease = inflight.getAndDecrement();
+        if (failed || latencyNanos > latencyThresholdNanos) {
+            limit.updateAndGet(current -> Math.max(minLimit, (int) (current * backoffRatio)));
+        } else if (inflightBeforeRelease * 2 >= limit.get()) {
+            // 上限の半分も使われていない間は、上限を増やしても効果があるか分からないため増やさない
+            limit.updateAndGet(current -> Math.min(maxLimit, current + 1));
+        }
+    }
+
+    /**
+     * リクエストの処理の終了を記録する（処理時間、結果を上限の調整に反映しない）
+     * ※時間がかかることが前提の処理、処理時間が混雑の度合いを表さない処理の終了時に呼び出す
+     */
+    public void releaseWithoutAdjustment() {
+        inflight.decrementAndGet();
+    }
+
+    /**
+     * 現在の上限を返す
+     *
+     * @return 同時に処理するリクエスト数の上限
+     */
+    public int getLimit() {
+        return limit.get();
+    }
+
+    /**
+     * 処理中のリクエスト数を返す
+     *
+     * @return 処理中のリクエスト数
+     */
+    public int getInflight() {
+        return inflight.get();
+    }
+}
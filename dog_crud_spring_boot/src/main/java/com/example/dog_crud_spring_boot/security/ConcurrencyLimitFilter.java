@@ -0,0 +1,235 @@
+package com.example.dog_crud_spring_boot.security;
+
+import com.example.dog_crud_spring_boot.config.ConcurrencyLimitProperties;
+import com.example.dog_crud_spring_boot.dto.ErrorResponseDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 同時に処理するリクエスト数を制限し、超えたリクエストをすぐに 503 Service Unavailable で拒否するフィルタ（負荷遮断）
+ * DBが遅くなったときにリクエストがTomcatのスレッドに溜まり続け、すべてのリクエストが遅くなることを防ぐ。
+ * 上限は読み取り（GET、HEAD）と更新で別々に持ち、処理時間に応じて自動で増減する（{@link AdaptiveConcurrencyLimit}）。
+ * ※非同期で処理するリクエスト（エクスポート、ユーザー登録など）は、非同期の処理が終わるまで処理中として数える
+ * ※時間がかかることが前提のパス（feedback-exclude-paths）と、処理時間が混雑の度合いを表さないレスポンス
+ * （リクエスト数の制限で拒否した429、本文を返さない304）は、処理中としては数えるが上限の調整には反映しない
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private static final String SERVICE_UNAVAILABLE = "サーバーが混雑しています。しばらくしてから再度お試しください";
+    private static final String METRIC_NAME = "http.server.concurrency";
+
+    private final ConcurrencyLimitProperties properties;
+    private final AdaptiveConcurrencyLimit readLimit;
+    private final AdaptiveConcurrencyLimit writeLimit;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    /**
+     * コンストラクタ
+     *
+     * @param properties    制限の設定
+     * @param objectMapper  エラーレスポンスをJSONに変換するマッパー
+     * @param meterRegistry 上限、処理中のリクエスト数、拒否したリクエスト数を記録するレジストリ
+     */
+    public ConcurrencyLimitFilter(ConcurrencyLimitProperties properties, ObjectMapper objectMapper,
+            MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.readLimit = new AdaptiveConcurrencyLimit(properties.read(), properties.highPriorityHeadroom(),
+                properties.lowPriorityShare());
+        this.writeLimit = new AdaptiveConcurrencyLimit(properties.write(), properties.highPriorityHeadroom(),
+                properties.lowPriorityShare());
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+
+        registerGauges("read", readLimit);
+        registerGauges("write", writeLimit);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        String path = pathOf(request);
+        return !matchesAny(properties.includePaths(), path) || matchesAny(properties.excludePaths(), path);
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain) throws ServletException, IOException {
+        String type = isRead(request) ? "read" : "write";
+        AdaptiveConcurrencyLimit limit = "read".equals(type) ? readLimit : writeLimit;
+        String path = pathOf(request);
+        AdaptiveConcurrencyLimit.Priority priority = priorityOf(path);
+        if (!limit.tryAcquire(priority)) {
+            Counter.builder(METRIC_NAME + ".rejected")
+                    .description("同時に処理するリクエスト数の上限を超えたため拒否したリクエストの数")
+                    .tag("type", type)
+                    .tag("priority", priority.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry)
+                    .increment();
+            reject(response);
+            return;
+        }
+
+        boolean feedback = !matchesAny(properties.feedbackExcludePaths(), path);
+        long start = System.nanoTime();
+        AtomicBoolean released = new AtomicBoolean();
+        boolean failed = true;
+        try {
+            filterChain.doFilter(request, response);
+            failed = false;
+        } finally {
+            if (!failed && request.isAsyncStarted()) {
+                // 非同期の処理が終わったときに処理時間を記録して解放する
+                request.getAsyncContext().addListener(new ReleasingAsyncListener(limit, start, feedback, released));
+            } else {
+                release(limit, start, failed, feedback, response, released);
+            }
+        }
+    }
+
+    /**
+     * レスポンスのステータスを確認して処理中のリクエストから外す
+     */
+    private static void release(AdaptiveConcurrencyLimit limit, long start, boolean failed, boolean feedback,
+            HttpServletResponse response, AtomicBoolean released) {
+        int status = response.getStatus();
+        boolean serverError = failed || status >= 500;
+        release(limit, start, serverError, feedback && (serverError || isFeedbackStatus(status)), released);
+    }
+
+    /**
+     * 処理中のリクエストから外し、処理時間を上限の調整に反映する（1つのリクエストにつき1回だけ行う）
+     *
+     * @param feedback 処理時間、結果を上限の調整に反映する場合はtrue
+     */
+    private static void release(AdaptiveConcurrencyLimit limit, long start, boolean failed, boolean feedback,
+            AtomicBoolean released) {
+        if (!released.compareAndSet(false, true)) {
+            return;
+        }
+        if (feedback) {
+            limit.release(System.nanoTime() - start, failed);
+        } else {
+            limit.releaseWithoutAdjustment();
+        }
+    }
+
+    /**
+     * 処理時間を上限の調整に反映するステータスか
+     * （このフィルタより後のリクエスト数の制限で拒否した429、本文を返さない304はすぐに返るため、速く処理できたとはみなさない）
+     */
+    private static boolean isFeedbackStatus(int status) {
+        return status != HttpStatus.TOO_MANY_REQUESTS.value() && status != HttpStatus.NOT_MODIFIED.value();
+    }
+
+    private static boolean isRead(HttpServletRequest request) {
+        return HttpMethod.GET.matches(request.getMethod()) || HttpMethod.HEAD.matches(request.getMethod());
+    }
+
+    private AdaptiveConcurrencyLimit.Priority priorityOf(String path) {
+        if (matchesAny(properties.highPriorityPaths(), path)) {
+            return AdaptiveConcurrencyLimit.Priority.HIGH;
+        }
+        if (matchesAny(properties.lowPriorityPaths(), path)) {
+            return AdaptiveConcurrencyLimit.Priority.LOW;
+        }
+        return AdaptiveConcurrencyLimit.Priority.NORMAL;
+    }
+
+    private boolean matchesAny(List<String> patterns, String path) {
+        return patterns != null && patterns.stream().anyMatch(pattern -> pathMatcher.match(pattern, path));
+    }
+
+    private static String pathOf(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    private void registerGauges(String type, AdaptiveConcurrencyLimit limit) {
+        Gauge.builder(METRIC_NAME + ".limit", limit, AdaptiveConcurrencyLimit::getLimit)
+                .description("同時に処理するリクエスト数の上限")
+                .tag("type", type)
+                .register(meterRegistry);
+        Gauge.builder(METRIC_NAME + ".inflight", limit, AdaptiveConcurrencyLimit::getInflight)
+                .description("処理中のリクエスト数")
+                .tag("type", type)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 503 Service Unavailable を返す
+     */
+    private void reject(HttpServletResponse response) throws IOException {
+        ErrorResponseDto dto = new ErrorResponseDto();
+        dto.setField("server");
+        dto.setMessage(SERVICE_UNAVAILABLE);
+
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        objectMapper.writeValue(response.getOutputStream(), List.of(dto));
+    }
+
+    /**
+     * 非同期の処理が終わったときに、処理中のリクエストから外すリスナー
+     */
+    private static final class ReleasingAsyncListener implements AsyncListener {
+
+        private final AdaptiveConcurrencyLimit limit;
+        private final long start;
+        private final boolean feedback;
+        private final AtomicBoolean released;
+
+        private ReleasingAsyncListener(AdaptiveConcurrencyLimit limit, long start, boolean feedback,
+                AtomicBoolean released) {
+            this.limit = limit;
+            this.start = start;
+            this.feedback = feedback;
+            this.released = released;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release(limit, start, false, feedback, (HttpServletResponse) event.getSuppliedResponse(), released);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release(limit, start, true, feedback, released);
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release(limit, start, true, feedback, released);
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // 再度非同期の処理が開始された場合は、リスナーを登録し直す必要がある
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
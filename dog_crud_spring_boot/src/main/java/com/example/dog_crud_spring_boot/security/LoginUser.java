@@ -0,0 +1,109 @@
+package com.example.dog_crud_spring_boot.security;
+
+import com.example.dog_crud_spring_boot.model.User;
+
+import org.springframework.security.core.CredentialsContainer;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * ログイン中のユーザーを表す認証情報（Spring Securityのプリンシパル）
+ * {@link User} エンティティをそのまま使うと、パスワードのハッシュを含むエンティティ全体がセッションに保存されるため、
+ * 認可や画面表示に必要な最小限の情報のみを持つ変更不可のクラスとして分けている。
+ * ※パスワードは認証処理でのみ使用し、認証後は {@link #eraseCredentials()} によって破棄される
+ */
+public final class LoginUser implements UserDetails, CredentialsContainer {
+
+    private static final List<GrantedAuthority> AUTHORITIES = List.of(new SimpleGrantedAuthority("ROLE_USER"));
+
+    /** ユーザーID */
+    private final Long id;
+
+    /** メールアドレス（ログインIDとして使用） */
+    private final String email;
+
+    /** 名前（表示名） */
+    private final String userName;
+
+    /** パスワードのハッシュ（認証後は破棄されnullになる） */
+    private String password;
+
+    /**
+     * コンストラクタ
+     *
+     * @param id       ユーザーID
+     * @param email    メールアドレス
+     * @param userName 名前
+     * @param password パスワードのハッシュ（不要な場合はnull）
+     */
+    public LoginUser(Long id, String email, String userName, String password) {
+        this.id = id;
+        this.email = email;
+        this.userName = userName;
+        this.password = password;
+    }
+
+    /**
+     * ユーザーのエンティティから認証情報を作成する
+     *
+     * @param user ユーザーのエンティティ
+     * @return 認証情報
+     */
+    public static LoginUser from(User user) {
+        return new LoginUser(user.getId(), user.getEmail(), user.getUserName(), user.getPassword());
+    }
+
+    /**
+     * 同じ内容の認証情報を新しく作成する
+     * ※キャッシュしている認証情報をそのまま渡すと、認証後のパスワードの破棄がキャッシュにも影響するため、複製を渡すために使用する
+     *
+     * @return 複製した認証情報
+     */
+    public LoginUser copy() {
+        return new LoginUser(id, email, userName, password);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getUserName() {
+        return userName;
+    }
+
+    // --- UserDetails インタフェースの実装 ---
+
+    /** このユーザーの権限リストを返す（常に「ROLE_USER（一般ユーザー）」のみ） */
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return AUTHORITIES;
+    }
+
+    @Override
+    public String getPassword() {
+        return password;
+    }
+
+    /**
+     * 認証に使うユーザー名を返す（ここではメールアドレスを使用）
+     * ※上記のゲッターのgetUserNameとは関係ないことに留意すること
+     */
+    @Override
+    public String getUsername() {
+        return email;
+    }
+
+    /** 認証後にパスワードを破棄する（セッションにパスワードのハッシュを保存しないため） */
+    @Override
+    public void eraseCredentials() {
+        this.password = null;
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.dog_crud_spring_boot.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * パスワードのハッシュ化、照合を専用のスレッドプールで実行するエンコーダー
+ * BCryptはCPUを多く使うため、ログインが集中するとリクエストを処理するスレッドがハッシュ化で埋まり、
+ * 投稿一覧などの他のAPIまで遅くなる。同時に実行するハッシュ化の数をスレッド数で制限し、
+ * 待ち行列が一杯の場合は {@link PasswordHashingBusyException} をスローしてすぐに拒否する。
+ */
+public class OffloadingPasswordEncoder implements PasswordEncoder, DisposableBean {
+
+    private static final String BUSY = "ログインが集中しています。しばらくしてから再度お試しください";
+    private static final String METRIC_NAME = "security.password.hashing";
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Counter rejectedCounter;
+
+    /**
+     * コンストラクタ
+     *
+     * @param delegate      実際にハッシュ化、照合を行うエンコーダー
+     * @param threads       ハッシュ化を行うスレッド数（同時に実行するハッシュ化の上限）
+     * @param queueCapacity 待ち行列の上限（これを超えた場合は拒否する）
+     * @param meterRegistry 処理時間や待ち行列の長さを記録するレジストリ
+     */
+    public OffloadingPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity,
+            MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("password-hashing-"),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.encodeTimer = Timer.builder(METRIC_NAME)
+                .description("パスワードのハッシュ化、照合にかかった時間")
+                .tag("operation", "encode")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.matchesTimer = Timer.builder(METRIC_NAME)
+                .description("パスワードのハッシュ化、照合にかかった時間")
+                .tag("operation", "matches")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder(METRIC_NAME + ".rejected")
+                .description("待ち行列が一杯で拒否したハッシュ化、照合の数")
+                .register(meterRegistry);
+        Gauge.builder(METRIC_NAME + ".queue", executor, e -> e.getQueue().size())
+                .description("ハッシュ化、照合の待ち行列の長さ")
+                .register(meterRegistry);
+        Gauge.builder(METRIC_NAME + ".active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("ハッシュ化、照合を実行中のスレッド数")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return await(submit(() -> delegate.encode(rawPassword), encodeTimer));
+    }
+
+    /**
+     * パスワードを非同期でハッシュ化する
+     * 呼び出し元のスレッドはハッシュ化の完了を待たないため、リクエストを処理するスレッドを占有しない。
+     * ※返却されたCompletableFutureの後続処理は、ハッシュ化を行うスレッドで実行される。
+     * DBへのアクセスなど時間のかかる後続処理は、別のExecutorを指定して実行すること（thenApplyAsyncなど）
+     *
+     * @param rawPassword ハッシュ化するパスワード
+     * @return ハッシュ化したパスワード
+     * @throws PasswordHashingBusyException 待ち行列が一杯の場合
+     */
+    public CompletableFuture<String> encodeAsync(CharSequence rawPassword) {
+        try {
+            return CompletableFuture.supplyAsync(() -> encodeTimer.record(() -> delegate.encode(rawPassword)),
+                    executor);
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new PasswordHashingBusyException(BUSY, e);
+        }
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return await(submit(() -> delegate.matches(rawPassword, encodedPassword), matchesTimer));
+    }
+
+    /**
+     * 保存されているハッシュを作り直すべきかを判定する（ハッシュの強度が設定より低い場合など）
+     * ※ハッシュ化は行わず文字列を確認するだけのため、呼び出し元のスレッドでそのまま実行する
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * アプリケーションの終了時にスレッドプールを停止する
+     */
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    /**
+     * 処理をスレッドプールに登録する（待ち行列が一杯の場合は拒否する）
+     */
+    private <T> Future<T> submit(Callable<T> task, Timer timer) {
+        try {
+            return executor.submit(() -> timer.recordCallable(task));
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new PasswordHashingBusyException(BUSY, e);
+        }
+    }
+
+    /**
+     * スレッドプールに登録した処理の完了を待ち、結果を返す
+     */
+    private <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("パスワードのハッシュ化が中断されました", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("パスワードのハッシュ化に失敗しました", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.dog_crud_spring_boot.security;
+
+import org.springframework.security.authentication.AuthenticationServiceException;
+
+/**
+ * パスワードのハッシュ化の待ち行列が一杯で、処理を受け付けられなかった場合にスローされる例外
+ * ログインが集中した場合などに発生し、クライアントには 429 Too Many Requests を返す。
+ * ※ログイン処理の中でスローされた場合もSpring Securityの失敗時の処理で扱えるよう、認証の例外として定義している
+ */
+public class PasswordHashingBusyException extends AuthenticationServiceException {
+
+    /**
+     * コンストラクタ
+     *
+     * @param message エラーメッセージ
+     * @param cause   原因となった例外
+     */
+    public PasswordHashingBusyException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
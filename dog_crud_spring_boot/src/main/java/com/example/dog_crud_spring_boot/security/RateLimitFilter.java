@@ -0,0 +1,166 @@
+package com.example.dog_crud_spring_boot.security;
+
+import com.example.dog_crud_spring_boot.config.RateLimitProperties;
+import com.example.dog_crud_spring_boot.dto.ErrorResponseDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * リクエスト数を利用者ごと（ログインユーザーのID、未ログインの場合はIPアドレス）に制限するフィルタ
+ * 設定したルール（メソッドとパス）に一致するリクエストが上限を超えた場合は、後続の処理を行わずに 429 Too Many Requests を返す。
+ *
+ * 制限はトークンバケットと同等のGCRA（Generic Cell Rate Algorithm）で行う。バケットごとに「次のリクエストを
+ * 受け付ける理論上の時刻」を1つのAtomicLongで保持し、CAS（比較して交換）で更新するため、ロックを使用しない。
+ * バケットは件数の上限と、使用されない期間による破棄を設定したキャッシュに保持するため、利用者が増えてもメモリを使い続けない。
+ * ※IPアドレスは接続元（リバースプロキシを使う場合は server.forward-headers-strategy の設定に従う）を使用する
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final String TOO_MANY_REQUESTS = "リクエストが多すぎます。しばらくしてから再度お試しください";
+    private static final String METRIC_NAME = "http.server.requests.rate.limited";
+
+    private final List<RateLimitProperties.Rule> rules;
+    private final Cache<String, AtomicLong> buckets;
+    private final Map<String, Counter> rejectedCounters;
+    private final ObjectMapper objectMapper;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    /**
+     * コンストラクタ
+     *
+     * @param properties    制限の設定
+     * @param objectMapper  エラーレスポンスをJSONに変換するマッパー
+     * @param meterRegistry 拒否したリクエスト数を記録するレジストリ
+     */
+    public RateLimitFilter(RateLimitProperties properties, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.rules = properties.rules() == null ? List.of() : List.copyOf(properties.rules());
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(properties.maxKeys())
+                .expireAfterAccess(properties.idleTimeout())
+                .build();
+        this.objectMapper = objectMapper;
+
+        this.rejectedCounters = rules.stream()
+                .collect(Collectors.toUnmodifiableMap(RateLimitProperties.Rule::name,
+                        rule -> Counter.builder(METRIC_NAME)
+                                .description("リクエスト数の上限を超えたため拒否したリクエストの数")
+                                .tag("rule", rule.name())
+                                .register(meterRegistry),
+                        (first, second) -> first));
+        Gauge.builder(METRIC_NAME + ".buckets", buckets, Cache::estimatedSize)
+                .description("リクエスト数を制限するために保持しているバケットの数")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain) throws ServletException, IOException {
+        RateLimitProperties.Rule rule = findRule(request);
+        if (rule == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        long waitNanos = tryAcquire(rule, rule.name() + ":" + clientKey(request));
+        if (waitNanos > 0) {
+            rejectedCounters.get(rule.name()).increment();
+            reject(response, waitNanos);
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    /**
+     * リクエストに一致するルールを探す（一致するルールがない場合はnull）
+     */
+    private RateLimitProperties.Rule findRule(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (RateLimitProperties.Rule rule : rules) {
+            if ((rule.method() == null || rule.method().equalsIgnoreCase(request.getMethod()))
+                    && pathMatcher.match(rule.path(), path)) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 利用者を識別するキーを返す（ログインしている場合はユーザーID、していない場合はIPアドレス）
+     */
+    private static String clientKey(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof LoginUser loginUser) {
+            return "user:" + loginUser.getId();
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    /**
+     * バケットからリクエスト1回分を取得する（GCRA）
+     * 1回分の間隔（refill-period ÷ capacity）ずつ「次に受け付ける理論上の時刻」を進め、
+     * それが現在時刻より capacity 回分以上先になる場合は拒否する。
+     *
+     * @return 受け付けた場合は0、拒否した場合は受け付けられるようになるまでの時間（ナノ秒）
+     */
+    private long tryAcquire(RateLimitProperties.Rule rule, String key) {
+        long interval = rule.refillPeriod().toNanos() / rule.capacity();
+        long burst = interval * rule.capacity();
+        // 新しいバケットは「過去の時刻」から始め、capacity回分のリクエストを連続して受け付けられるようにする
+        AtomicLong theoreticalArrival = buckets.get(key, k -> new AtomicLong(Long.MIN_VALUE));
+
+        while (true) {
+            long now = System.nanoTime();
+            long current = theoreticalArrival.get();
+            long next = Math.max(current, now) + interval;
+            long wait = next - now - burst;
+            if (wait > 0) {
+                return wait;
+            }
+            if (theoreticalArrival.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * 429 Too Many Requests を返す（Retry-Afterには受け付けられるようになるまでの秒数を設定する）
+     */
+    private void reject(HttpServletResponse response, long waitNanos) throws IOException {
+        ErrorResponseDto dto = new ErrorResponseDto();
+        dto.setField("server");
+        dto.setMessage(TOO_MANY_REQUESTS);
+
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        long retryAfterSeconds = (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        objectMapper.writeValue(response.getOutputStream(), List.of(dto));
+    }
+}
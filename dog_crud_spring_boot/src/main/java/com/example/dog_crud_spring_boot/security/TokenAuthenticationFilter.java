@@ -0,0 +1,52 @@
+package com.example.dog_crud_spring_boot.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.NonNull;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * リクエストの Authorization ヘッダー（Bearer）に含まれるアクセストークンを検証し、ログイン状態にするフィルタ
+ * トークン認証（app.security.mode=token）の場合のみ、セキュリティのフィルタチェーンに追加される。
+ * ※トークンがない、または不正な場合は未ログインのまま処理を続ける（認可が必要なAPIであれば後続の処理で401になる）
+ */
+public class TokenAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final AccessTokenService accessTokenService;
+
+    /**
+     * コンストラクタ
+     *
+     * @param accessTokenService トークンの検証を行うサービス
+     */
+    public TokenAuthenticationFilter(AccessTokenService accessTokenService) {
+        this.accessTokenService = accessTokenService;
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain) throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header != null && header.startsWith(BEARER_PREFIX)) {
+            accessTokenService.verifyAccessToken(header.substring(BEARER_PREFIX.length()))
+                    .ifPresent(loginUser -> {
+                        SecurityContext context = SecurityContextHolder.createEmptyContext();
+                        context.setAuthentication(UsernamePasswordAuthenticationToken.authenticated(
+                                loginUser, null, loginUser.getAuthorities()));
+                        SecurityContextHolder.setContext(context);
+                    });
+        }
+        filterChain.doFilter(request, response);
+    }
+}
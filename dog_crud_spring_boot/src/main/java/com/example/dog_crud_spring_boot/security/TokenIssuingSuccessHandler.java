@@ -0,0 +1,43 @@
+package com.example.dog_crud_spring_boot.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.authentication.AuthenticationSuccessHandler;
+
+import java.io.IOException;
+
+/**
+ * トークン認証（app.security.mode=token）でログインに成功したときに、トークンをレスポンスとして返すハンドラ
+ * セッション認証の場合はステータス200を返すだけだが、トークン認証ではセッションを作らないため、
+ * 以降のリクエストで使用するアクセストークンとリフレッシュトークンをJSONで返す。
+ */
+public class TokenIssuingSuccessHandler implements AuthenticationSuccessHandler {
+
+    private final AccessTokenService accessTokenService;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * コンストラクタ
+     *
+     * @param accessTokenService トークンの発行を行うサービス
+     * @param objectMapper       レスポンスをJSONに変換するためのマッパー
+     */
+    public TokenIssuingSuccessHandler(AccessTokenService accessTokenService, ObjectMapper objectMapper) {
+        this.accessTokenService = accessTokenService;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void onAuthenticationSuccess(HttpServletRequest request, HttpServletResponse response,
+            Authentication authentication) throws IOException {
+        LoginUser loginUser = (LoginUser) authentication.getPrincipal();
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), accessTokenService.issueTokens(loginUser));
+    }
+}
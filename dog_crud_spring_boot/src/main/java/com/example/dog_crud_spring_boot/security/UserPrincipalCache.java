@@ -0,0 +1,58 @@
+package com.example.dog_crud_spring_boot.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * ログインユーザーの認証情報（{@link LoginUser}）をメールアドレスごとに保持するキャッシュ
+ * ログインのたびにユーザーをDBから取得しないようにするために使用する。
+ * 件数の上限と有効期間を設けているため、メモリを使い続けることはない。
+ * ※ユーザーの情報（パスワードなど）を更新する処理を追加した場合は、更新後に必ず {@link #evict(String)} を呼び出すこと
+ */
+@Component
+public class UserPrincipalCache {
+
+    private final Cache<String, LoginUser> cache;
+
+    /**
+     * コンストラクタ
+     *
+     * @param maximumSize キャッシュする件数の上限
+     * @param ttl         キャッシュの有効期間（登録してからこの期間が過ぎるとDBから取得し直す）
+     */
+    public UserPrincipalCache(@Value("${app.security.user-cache.maximum-size}") long maximumSize,
+            @Value("${app.security.user-cache.ttl}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /**
+     * 指定されたメールアドレスのユーザーの認証情報を取得する
+     * キャッシュに存在しない場合は loader で取得してキャッシュする（loaderが空を返した場合はキャッシュしない）
+     *
+     * @param email  メールアドレス
+     * @param loader キャッシュに存在しない場合に認証情報を取得する処理
+     * @return 該当するユーザーの認証情報（存在しない場合は空のOptional）
+     */
+    public Optional<LoginUser> get(String email, Function<String, Optional<LoginUser>> loader) {
+        return Optional.ofNullable(cache.get(email, key -> loader.apply(key).orElse(null)));
+    }
+
+    /**
+     * 指定されたメールアドレスのユーザーの認証情報をキャッシュから削除する
+     *
+     * @param email メールアドレス
+     */
+    public void evict(String email) {
+        cache.invalidate(email);
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.dog_crud_spring_boot.service;
+
+import com.example.dog_crud_spring_boot.event.AgeMasterChangedEvent;
+import com.example.dog_crud_spring_boot.model.Age;
+import com.example.dog_crud_spring_boot.repository.AgeRepository;
+
+import jakarta.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 年齢のマスタデータをメモリ上に保持するキャッシュ
+ * agesテーブルは初期データとして投入された数件のみで、通常の操作で変更されることはないため、
+ * 起動時に一度だけ読み込み、一覧の取得や投稿作成時の存在確認でDBにアクセスしないようにする。
+ * ※保持している内容は変更不可のスナップショットとし、読み込み直す場合はスナップショットごと差し替える
+ */
+@Component
+public class AgeCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(AgeCache.class);
+
+    private final AgeRepository ageRepository;
+
+    /** 現在のスナップショット（読み込み直した際に丸ごと差し替えるためvolatileとする） */
+    private volatile Snapshot snapshot = new Snapshot(List.of(), Map.of(), "\"\"");
+
+    /**
+     * ある時点の年齢のマスタデータ
+     *
+     * @param ages     並び順で昇順に並んだすべての年齢
+     * @param agesById IDをキーにした年齢
+     * @param eTag     内容から算出したETag（内容が変わらない限り同じ値になる）
+     */
+    public record Snapshot(List<Age> ages, Map<Long, Age> agesById, String eTag) {
+    }
+
+    /**
+     * コンストラクタ
+     *
+     * @param ageRepository 年齢データへのアクセスを提供するリポジトリ
+     */
+    public AgeCache(AgeRepository ageRepository) {
+        this.ageRepository = ageRepository;
+    }
+
+    /**
+     * 起動時にagesテーブルの内容を読み込む
+     * ※初回起動時は初期データの投入前に呼び出されるため空になるが、投入後に発行されるイベントで読み込み直される
+     */
+    @PostConstruct
+    public void load() {
+        refresh();
+    }
+
+    /**
+     * 年齢のマスタデータが変更されたときに内容を読み込み直す
+     *
+     * @param event 年齢のマスタデータが変更されたことを通知するイベント
+     */
+    @EventListener
+    public void onAgeMasterChanged(AgeMasterChangedEvent event) {
+        refresh();
+    }
+
+    /**
+     * agesテーブルの内容を読み込み、スナップショットを差し替える
+     */
+    public void refresh() {
+        List<Age> ages = List.copyOf(ageRepository.findAllByOrderBySortOrderAsc());
+        Map<Long, Age> agesById = ages.stream().collect(Collectors.toUnmodifiableMap(Age::getId, Function.identity()));
+
+        // ID、値、並び順をつなげた文字列のハッシュをETagとする
+        String content = ages.stream()
+                .map(age -> age.getId() + ":" + age.getValue() + ":" + age.getSortOrder())
+                .collect(Collectors.joining(","));
+        String eTag = "\"" + DigestUtils.md5DigestAsHex(content.getBytes(StandardCharsets.UTF_8)) + "\"";
+
+        snapshot = new Snapshot(ages, agesById, eTag);
+        logger.info("年齢のマスタデータを読み込みました（{}件）", ages.size());
+    }
+
+    /**
+     * 現在のスナップショットを取得する
+     *
+     * @return 現在のスナップショット
+     */
+    public Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * 指定されたIDの年齢を取得する
+     *
+     * @param id 年齢のID
+     * @return 該当する年齢（存在しない場合は空のOptional）
+     */
+    public Optional<Age> findById(Long id) {
+        return Optional.ofNullable(snapshot.agesById().get(id));
+    }
+}
@@ -1,26 +1,36 @@
 package com.example.dog_crud_spring_boot.service;
 
+import com.example.dog_crud_spring_boot.model.User;
 import com.example.dog_crud_spring_boot.repository.UserRepository;
+import com.example.dog_crud_spring_boot.security.LoginUser;
+import com.example.dog_crud_spring_boot.security.UserPrincipalCache;
+
 import org.springframework.security.core.userdetails.*;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Spring Security の認証処理において、指定されたユーザー情報をデータベースから取得するためのサービスクラス
  * UserDetailsServiceインターフェースを実装し、emailを用いたユーザーの検索と返却を行う
+ * ※取得したユーザー情報はキャッシュし、有効期間内であればデータベースにアクセスしない
+ * また、UserDetailsPasswordServiceを実装することで、ログイン成功時に古い方式・強度のパスワードのハッシュを作り直す
  */
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
+    private final UserPrincipalCache userPrincipalCache;
 
     /**
      * コンストラクタインジェクションによるUserRepositoryの注入
      * ※Springが自動で用意して、ここにセットする仕組みを使っている
      *
-     * @param userRepository ユーザー情報を取得するためのリポジトリ
+     * @param userRepository     ユーザー情報を取得するためのリポジトリ
+     * @param userPrincipalCache 取得したユーザー情報を保持するキャッシュ
      */
-    public CustomUserDetailsService(UserRepository userRepository) {
+    public CustomUserDetailsService(UserRepository userRepository, UserPrincipalCache userPrincipalCache) {
         this.userRepository = userRepository;
+        this.userPrincipalCache = userPrincipalCache;
     }
 
     /**
@@ -33,8 +43,33 @@ public class CustomUserDetailsService implements UserDetailsService {
      */
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-        // emailを使ってユーザーを検索し、存在しなければ例外を投げる
-        return userRepository.findByEmail(email)
+        // キャッシュになければemailを使ってユーザーを検索し、存在しなければ例外を投げる
+        LoginUser loginUser = userPrincipalCache
+                .get(email, key -> userRepository.findByEmail(key).map(LoginUser::from))
+                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+
+        // 認証後にパスワードが破棄されてもキャッシュに影響しないよう、複製を返す
+        return loginUser.copy();
+    }
+
+    /**
+     * パスワードのハッシュを新しいものに更新する
+     * Spring Securityのログイン処理で、保存されているハッシュの方式・強度が現在の設定と異なる場合に自動で呼び出される
+     *
+     * @param user        ログインしたユーザー
+     * @param newPassword 現在の設定でハッシュ化し直したパスワード
+     * @return 更新後のユーザー情報
+     * @throws UsernameNotFoundException ユーザーが見つからなかった場合にスローされる例外
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        User entity = userRepository.findByEmail(user.getUsername())
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        entity.setPassword(newPassword);
+
+        // キャッシュに古いハッシュが残らないよう削除する
+        userPrincipalCache.evict(entity.getEmail());
+        return LoginUser.from(entity);
     }
-}
\ No newline at end of file
+}
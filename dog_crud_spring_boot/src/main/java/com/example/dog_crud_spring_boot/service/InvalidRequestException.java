@@ -0,0 +1,43 @@
+package com.example.dog_crud_spring_boot.service;
+
+/**
+ * リクエストの値が不正な場合にスローされる例外（HTTP 400 として返す）
+ * エラーレスポンスに、どの項目（パラメータ）の値が不正かを含めるため、項目名を保持する
+ */
+public class InvalidRequestException extends IllegalArgumentException {
+
+    /** 値が不正な項目の名前 */
+    private final String field;
+
+    /**
+     * コンストラクタ
+     *
+     * @param field   値が不正な項目の名前
+     * @param message クライアントに返すメッセージ
+     */
+    public InvalidRequestException(String field, String message) {
+        super(message);
+        this.field = field;
+    }
+
+    /**
+     * コンストラクタ
+     *
+     * @param field   値が不正な項目の名前
+     * @param message クライアントに返すメッセージ
+     * @param cause   原因となった例外
+     */
+    public InvalidRequestException(String field, String message, Throwable cause) {
+        super(message, cause);
+        this.field = field;
+    }
+
+    /**
+     * 値が不正な項目の名前を返す
+     *
+     * @return 項目の名前
+     */
+    public String getField() {
+        return field;
+    }
+}
@@ -0,0 +1,414 @@
+package com.example.dog_crud_spring_boot.service;
+
+import com.example.dog_crud_spring_boot.dto.ErrorResponseDto;
+import com.example.dog_crud_spring_boot.dto.PostBulkItemResultDto;
+import com.example.dog_crud_spring_boot.dto.PostBulkResponseDto;
+import com.example.dog_crud_spring_boot.dto.PostBulkUpdateRequestDto;
+import com.example.dog_crud_spring_boot.dto.PostRequestDto;
+import com.example.dog_crud_spring_boot.event.PostChangedEvent;
+import com.example.dog_crud_spring_boot.model.Post;
+import com.example.dog_crud_spring_boot.model.User;
+import com.example.dog_crud_spring_boot.repository.PostRepository;
+import com.example.dog_crud_spring_boot.repository.UserRepository;
+import com.example.dog_crud_spring_boot.security.LoginUser;
+
+import io.micrometer.core.annotation.Timed;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 投稿の一括作成、更新、削除を行うサービスクラス
+ * 投稿を1件ずつ作成するとリクエスト、トランザクション、INSERT文がそれぞれ投稿の数だけ発生するため、
+ * 一定の件数（チャンク）ごとに1つのトランザクションでまとめて処理し、INSERT文、UPDATE文はJDBCのバッチでまとめて送信する。
+ * ※1件ごとの入力チェックの結果はリクエスト全体を失敗させず、1件ごとの処理結果として返す
+ */
+@Service
+@Timed(value = "posts.bulk", histogram = true)
+public class PostBulkService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostBulkService.class);
+
+    private static final String TOO_MANY_ITEMS = "一度に処理できる投稿は%d件までです";
+    private static final String TARGET_DATA_NOT_FOUND = "指定された投稿が存在しません";
+    private static final String WRONG_AGE_DATA = "送信された年齢のデータが不正です";
+    private static final String NO_PERMISSION = "この操作を実行する権限がありません";
+    private static final String VERSION_CONFLICT = "他の操作により投稿が更新されています。最新の内容を確認してください";
+    private static final String DUPLICATE_ID = "同じ投稿が複数指定されています。1回のリクエストでは1件にまとめてください";
+    private static final String CHUNK_FAILED = "同時に処理した投稿の保存に失敗したため、反映されていません";
+
+    private final PostRepository postRepository;
+    private final UserRepository userRepository;
+    private final AgeCache ageCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final int maxItems;
+
+    /**
+     * コンストラクタ
+     *
+     * @param postRepository     投稿データへのアクセスを提供するリポジトリ
+     * @param userRepository     ユーザーデータへのアクセスを提供するリポジトリ
+     * @param ageCache           年齢のマスタデータを保持するキャッシュ
+     * @param eventPublisher     投稿の変更を通知するためのイベント発行元
+     * @param validator          1件ごとの入力チェックを行うバリデーター
+     * @param transactionManager チャンクごとのトランザクションを開始するトランザクションマネージャー
+     * @param chunkSize          1つのトランザクションで処理する件数
+     * @param maxItems           1回のリクエストで処理できる件数の上限
+     */
+    public PostBulkService(PostRepository postRepository, UserRepository userRepository, AgeCache ageCache,
+            ApplicationEventPublisher eventPublisher, Validator validator,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.posts.bulk.chunk-size}") int chunkSize,
+            @Value("${app.posts.bulk.max-items}") int maxItems) {
+        this.postRepository = postRepository;
+        this.userRepository = userRepository;
+        this.ageCache = ageCache;
+        this.eventPublisher = eventPublisher;
+        this.validator = validator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.maxItems = maxItems;
+    }
+
+    /**
+     * 投稿をまとめて作成する
+     *
+     * @param requests       作成する投稿のデータ
+     * @param authentication ログインしているユーザーの認証情報（投稿者となる）
+     * @return 1件ごとの処理結果
+     * @throws InvalidRequestException 件数が上限を超えている場合
+     */
+    public PostBulkResponseDto createPosts(List<PostRequestDto> requests, Authentication authentication) {
+        validateItemCount(requests);
+        PostBulkItemResultDto[] results = new PostBulkItemResultDto[requests.size()];
+        LoginUser loginUser = (LoginUser) authentication.getPrincipal();
+
+        // 入力チェックを通過したものだけを保存する
+        List<Integer> validIndexes = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            PostRequestDto request = requests.get(i);
+            List<ErrorResponseDto> errors = validate(request);
+            if (errors.isEmpty() && ageCache.findById(request.getAgeId()).isEmpty()) {
+                errors = List.of(error("ageId", WRONG_AGE_DATA));
+            }
+            if (errors.isEmpty()) {
+                validIndexes.add(i);
+            } else {
+                results[i] = failure(i, HttpStatus.BAD_REQUEST, null, errors);
+            }
+        }
+
+        forEachChunk(validIndexes, results, chunk -> {
+            User user = userRepository.getReferenceById(loginUser.getId());
+            List<Post> posts = new ArrayList<>(chunk.size());
+            for (int index : chunk) {
+                PostRequestDto request = requests.get(index);
+                Post post = new Post();
+                post.setTitle(request.getTitle());
+                post.setContent(request.getContent());
+                post.setImageUrl(request.getImageUrl());
+                post.setUser(user);
+                post.setAge(ageCache.findById(request.getAgeId()).orElseThrow());
+                posts.add(post);
+            }
+
+            // IDはシーケンスから確保済みの範囲で採番されるため、INSERT文はバッチでまとめて送信される
+            postRepository.saveAll(posts);
+            postRepository.flush();
+            eventPublisher.publishEvent(new PostChangedEvent(PostChangedEvent.Type.CREATED,
+                    posts.stream().map(Post::getId).toList()));
+
+            List<PostBulkItemResultDto> chunkResults = new ArrayList<>(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                chunkResults.add(success(chunk.get(i), HttpStatus.CREATED, posts.get(i).getId(),
+                        posts.get(i).getVersion()));
+            }
+            return chunkResults;
+        });
+        return toResponse(results);
+    }
+
+    /**
+     * 投稿をまとめて更新する
+     * ※バージョンが指定された場合、編集を始めた後に他の更新が反映されていればその投稿は更新しない（412）
+     * ※同じIDが複数指定された場合、それらはすべて更新しない（400）。同じ投稿を同じトランザクションで続けて変更すると、
+     * どちらもUPDATE文の発行前のバージョンで確認されるため、先の変更が後の変更で上書きされたことを検知できないため
+     *
+     * @param requests       更新内容
+     * @param authentication ログインしているユーザーの認証情報（投稿の作成者のみ更新できる）
+     * @return 1件ごとの処理結果
+     * @throws InvalidRequestException 件数が上限を超えている場合
+     */
+    public PostBulkResponseDto updatePosts(List<PostBulkUpdateRequestDto> requests, Authentication authentication) {
+        validateItemCount(requests);
+        PostBulkItemResultDto[] results = new PostBulkItemResultDto[requests.size()];
+        LoginUser loginUser = (LoginUser) authentication.getPrincipal();
+
+        Set<Long> duplicateIds = findDuplicateIds(
+                requests.stream().map(request -> request == null ? null : request.getId()).toList());
+        List<Integer> validIndexes = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            PostBulkUpdateRequestDto request = requests.get(i);
+            List<ErrorResponseDto> errors = validate(request);
+            if (errors.isEmpty() && duplicateIds.contains(request.getId())) {
+                errors = List.of(error("id", DUPLICATE_ID));
+            }
+            if (errors.isEmpty() && ageCache.findById(request.getPost().getAgeId()).isEmpty()) {
+                errors = List.of(error("ageId", WRONG_AGE_DATA));
+            }
+            if (errors.isEmpty()) {
+                validIndexes.add(i);
+            } else {
+                results[i] = failure(i, HttpStatus.BAD_REQUEST, request == null ? null : request.getId(), errors);
+            }
+        }
+
+        forEachChunk(validIndexes, results, chunk -> {
+            Map<Long, Post> postsById = findPostsById(chunk.stream().map(i -> requests.get(i).getId()).toList());
+
+            List<PostBulkItemResultDto> chunkResults = new ArrayList<>(chunk.size());
+            Map<Integer, Post> updatedPosts = new LinkedHashMap<>();
+            for (int index : chunk) {
+                PostBulkUpdateRequestDto request = requests.get(index);
+                Post post = postsById.get(request.getId());
+                Optional<PostBulkItemResultDto> rejected = checkTarget(index, request.getId(), post, loginUser,
+                        request.getVersion());
+                if (rejected.isPresent()) {
+                    chunkResults.add(rejected.get());
+                    continue;
+                }
+                PostRequestDto postRequest = request.getPost();
+                post.setTitle(postRequest.getTitle());
+                post.setContent(postRequest.getContent());
+                post.setImageUrl(postRequest.getImageUrl());
+                post.setAge(ageCache.findById(postRequest.getAgeId()).orElseThrow());
+                updatedPosts.put(index, post);
+            }
+
+            // 変更の検知によるUPDATE文をここでバッチでまとめて送信し、更新後のバージョンを確定させる
+            postRepository.flush();
+            if (!updatedPosts.isEmpty()) {
+                eventPublisher.publishEvent(new PostChangedEvent(PostChangedEvent.Type.UPDATED,
+                        updatedPosts.values().stream().map(Post::getId).toList()));
+            }
+            updatedPosts.forEach((index, post) -> chunkResults.add(
+                    success(index, HttpStatus.OK, post.getId(), post.getVersion())));
+            return chunkResults;
+        });
+        return toResponse(results);
+    }
+
+    /**
+     * 投稿をまとめて削除する（論理削除）
+     * ※同じIDが複数指定された場合は、更新と同様にそれらはすべて削除しない（400）
+     *
+     * @param ids            削除する投稿のID
+     * @param authentication ログインしているユーザーの認証情報（投稿の作成者のみ削除できる）
+     * @return 1件ごとの処理結果
+     * @throws InvalidRequestException 件数が上限を超えている場合
+     */
+    public PostBulkResponseDto deletePosts(List<Long> ids, Authentication authentication) {
+        validateItemCount(ids);
+        PostBulkItemResultDto[] results = new PostBulkItemResultDto[ids.size()];
+        LoginUser loginUser = (LoginUser) authentication.getPrincipal();
+
+        Set<Long> duplicateIds = findDuplicateIds(ids);
+        List<Integer> validIndexes = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            if (ids.get(i) == null) {
+                results[i] = failure(i, HttpStatus.BAD_REQUEST, null,
+                        List.of(error("id", "投稿のIDを指定してください")));
+            } else if (duplicateIds.contains(ids.get(i))) {
+                results[i] = failure(i, HttpStatus.BAD_REQUEST, ids.get(i), List.of(error("id", DUPLICATE_ID)));
+            } else {
+                validIndexes.add(i);
+            }
+        }
+
+        forEachChunk(validIndexes, results, chunk -> {
+            Map<Long, Post> postsById = findPostsById(chunk.stream().map(ids::get).toList());
+
+            List<PostBulkItemResultDto> chunkResults = new ArrayList<>(chunk.size());
+            List<Long> deletedIds = new ArrayList<>();
+            for (int index : chunk) {
+                Long id = ids.get(index);
+                Post post = postsById.get(id);
+                Optional<PostBulkItemResultDto> rejected = checkTarget(index, id, post, loginUser, null);
+                if (rejected.isPresent()) {
+                    chunkResults.add(rejected.get());
+                    continue;
+                }
+                post.markDeleted();
+                deletedIds.add(id);
+                chunkResults.add(success(index, HttpStatus.OK, id, null));
+            }
+
+            postRepository.flush();
+            if (!deletedIds.isEmpty()) {
+                eventPublisher.publishEvent(new PostChangedEvent(PostChangedEvent.Type.DELETED, deletedIds));
+            }
+            return chunkResults;
+        });
+        return toResponse(results);
+    }
+
+    /**
+     * 件数が上限を超えていないかを確認する
+     */
+    private void validateItemCount(List<?> items) {
+        if (items.size() > maxItems) {
+            throw new InvalidRequestException("items", String.format(TOO_MANY_ITEMS, maxItems));
+        }
+    }
+
+    /**
+     * リクエスト内で複数回指定されたIDを求める
+     *
+     * @param ids リクエストで指定されたID（nullを含んでもよい）
+     * @return 2回以上指定されたID
+     */
+    private static Set<Long> findDuplicateIds(List<Long> ids) {
+        Set<Long> seen = new HashSet<>();
+        Set<Long> duplicates = new HashSet<>();
+        for (Long id : ids) {
+            if (id != null && !seen.add(id)) {
+                duplicates.add(id);
+            }
+        }
+        return duplicates;
+    }
+
+    /**
+     * 入力チェックを行う（@Validと同じ内容を1件ごとに確認する）
+     */
+    private List<ErrorResponseDto> validate(Object request) {
+        if (request == null) {
+            return List.of(error("post", "投稿データを指定してください"));
+        }
+        Set<ConstraintViolation<Object>> violations = validator.validate(request);
+        return violations.stream()
+                .map(violation -> error(violation.getPropertyPath().toString(), violation.getMessage()))
+                .toList();
+    }
+
+    /**
+     * 入力チェックを通過したものを、チャンクごとに1つのトランザクションで処理する
+     * チャンクの処理に失敗した場合、そのチャンクはロールバックされるため、チャンク内のすべてを失敗とし、次のチャンクの処理を続ける
+     *
+     * @param indexes   処理するもののリクエストの配列内の位置
+     * @param results   1件ごとの処理結果の格納先
+     * @param processor チャンクを処理し、チャンク内の1件ごとの処理結果を返す処理
+     */
+    private void forEachChunk(List<Integer> indexes, PostBulkItemResultDto[] results,
+            Function<List<Integer>, List<PostBulkItemResultDto>> processor) {
+        for (int from = 0; from < indexes.size(); from += chunkSize) {
+            List<Integer> chunk = indexes.subList(from, Math.min(from + chunkSize, indexes.size()));
+            try {
+                List<PostBulkItemResultDto> chunkResults = transactionTemplate.execute(
+                        status -> processor.apply(chunk));
+                chunkResults.forEach(result -> results[result.getIndex()] = result);
+            } catch (DataAccessException | TransactionException e) {
+                // 楽観的ロックの失敗（同時に他の更新が反映された）も含む
+                logger.warn("投稿の一括処理に失敗しました（{}件）", chunk.size(), e);
+                HttpStatus status = e instanceof OptimisticLockingFailureException
+                        ? HttpStatus.CONFLICT
+                        : HttpStatus.INTERNAL_SERVER_ERROR;
+                chunk.forEach(index -> results[index] = failure(index, status, null,
+                        List.of(error("server", CHUNK_FAILED))));
+            }
+        }
+    }
+
+    /**
+     * IDを指定して投稿をまとめて取得する（1回のクエリで取得する）
+     */
+    private Map<Long, Post> findPostsById(List<Long> ids) {
+        return postRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Post::getId, Function.identity()));
+    }
+
+    /**
+     * 更新、削除の対象の投稿が処理できるものかを確認する
+     *
+     * @return 処理できない場合は、その理由を表す処理結果
+     */
+    private Optional<PostBulkItemResultDto> checkTarget(int index, Long id, Post post, LoginUser loginUser,
+            Long expectedVersion) {
+        if (post == null) {
+            return Optional.of(failure(index, HttpStatus.NOT_FOUND, id,
+                    List.of(error("id", TARGET_DATA_NOT_FOUND))));
+        }
+        if (!post.getUser().getId().equals(loginUser.getId())) {
+            return Optional.of(failure(index, HttpStatus.FORBIDDEN, id,
+                    List.of(error("authorization", NO_PERMISSION))));
+        }
+        if (expectedVersion != null && expectedVersion != post.getVersion()) {
+            return Optional.of(failure(index, HttpStatus.PRECONDITION_FAILED, id,
+                    List.of(error("version", VERSION_CONFLICT))));
+        }
+        return Optional.empty();
+    }
+
+    private static PostBulkItemResultDto success(int index, HttpStatus status, Long id, Long version) {
+        PostBulkItemResultDto result = new PostBulkItemResultDto();
+        result.setIndex(index);
+        result.setStatus(status.value());
+        result.setId(id);
+        result.setVersion(version);
+        return result;
+    }
+
+    private static PostBulkItemResultDto failure(int index, HttpStatus status, Long id,
+            List<ErrorResponseDto> errors) {
+        PostBulkItemResultDto result = new PostBulkItemResultDto();
+        result.setIndex(index);
+        result.setStatus(status.value());
+        result.setId(id);
+        result.setErrors(errors);
+        return result;
+    }
+
+    private static ErrorResponseDto error(String field, String message) {
+        ErrorResponseDto dto = new ErrorResponseDto();
+        dto.setField(field);
+        dto.setMessage(message);
+        return dto;
+    }
+
+    private static PostBulkResponseDto toResponse(PostBulkItemResultDto[] results) {
+        List<PostBulkItemResultDto> resultList = Arrays.asList(results);
+        int succeeded = (int) resultList.stream().filter(result -> result.getErrors() == null).count();
+        PostBulkResponseDto response = new PostBulkResponseDto();
+        response.setSucceeded(succeeded);
+        response.setFailed(resultList.size() - succeeded);
+        response.setResults(resultList);
+        return response;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.dog_crud_spring_boot.service;
+
+import com.example.dog_crud_spring_boot.event.PostChangedEvent;
+import com.example.dog_crud_spring_boot.repository.PostCollectionVersionRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * 投稿が作成、更新、削除されたトランザクションのコミットの直前に、投稿一覧のバージョンを進めるクラス
+ * ※バージョンの行ロックを保持する時間を短くし、また投稿の行ロックとの待ち合い（デッドロック）を防ぐため、
+ * 投稿の変更をDBに反映してから、最後にバージョンを更新する
+ * ※行は起動時（リクエストを受け付ける前）に {@code DataInitializer} が作成するため、ここでは更新のみを行う
+ * （ここで行を作成すると、最初の変更が同時に行われた場合にINSERTどうしが待ち合って（重複して）失敗するため）
+ */
+@Component
+public class PostCollectionVersionUpdater {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostCollectionVersionUpdater.class);
+
+    private final PostCollectionVersionRepository postCollectionVersionRepository;
+
+    /**
+     * コンストラクタ
+     *
+     * @param postCollectionVersionRepository 投稿一覧のバージョンへのアクセスを提供するリポジトリ
+     */
+    public PostCollectionVersionUpdater(PostCollectionVersionRepository postCollectionVersionRepository) {
+        this.postCollectionVersionRepository = postCollectionVersionRepository;
+    }
+
+    /**
+     * 投稿の変更を受け取り、投稿一覧のバージョンを進める
+     * ※同じトランザクションで複数回呼び出された場合も、バージョンが複数進むだけで結果は変わらない
+     *
+     * @param event 投稿の変更
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onPostChanged(PostChangedEvent event) {
+        postCollectionVersionRepository.flush();
+        if (postCollectionVersionRepository.increment() == 0) {
+            // 投稿の変更は失敗させない（行がない間は投稿一覧のETagを返さないため、古い一覧が返ることはない）
+            logger.warn("投稿一覧のバージョンの行が存在しないため、バージョンを進められませんでした");
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.dog_crud_spring_boot.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * フィードのキーセットページングで使用するカーソル
+ * ページの最後の投稿の作成日時とIDを保持し、クライアントには中身を意識させないよう
+ * 不透明な文字列（URLセーフなBase64）として受け渡しする。
+ *
+ * @param createdAt ページの最後の投稿の作成日時
+ * @param id        ページの最後の投稿のID
+ */
+public record PostCursor(LocalDateTime createdAt, Long id) {
+
+    private static final String SEPARATOR = "|";
+    private static final String WRONG_CURSOR = "カーソルの値が不正です";
+
+    /** エラーレスポンスに含める、値が不正な項目の名前（リクエストパラメータ名） */
+    private static final String FIELD = "cursor";
+
+    /**
+     * カーソルをクライアントに返却する文字列に変換する
+     *
+     * @return URLにそのまま含められるカーソル文字列
+     */
+    public String encode() {
+        String raw = createdAt + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * クライアントから送信されたカーソル文字列を復元する
+     *
+     * @param token {@link #encode()} で生成されたカーソル文字列
+     * @return 復元したカーソル
+     * @throws InvalidRequestException カーソルの形式が不正な場合
+     */
+    public static PostCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int index = raw.lastIndexOf(SEPARATOR);
+            if (index < 0) {
+                throw new InvalidRequestException(FIELD, WRONG_CURSOR);
+            }
+            return new PostCursor(LocalDateTime.parse(raw.substring(0, index)),
+                    Long.valueOf(raw.substring(index + 1)));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            // NumberFormatExceptionもIllegalArgumentExceptionのサブクラスのためここで捕捉される
+            throw new InvalidRequestException(FIELD, WRONG_CURSOR, e);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.dog_crud_spring_boot.service;
+
+import com.example.dog_crud_spring_boot.dto.PostResponseDto;
+import com.example.dog_crud_spring_boot.repository.PostRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+/**
+ * すべての投稿をファイル形式（NDJSON、CSV）で出力するサービスクラス
+ * 投稿をリストにまとめてから出力するのではなく、DBから1件ずつ取得しながらそのまま出力するため、
+ * 投稿が何百万件あってもメモリ使用量は一定となる。
+ */
+@Service
+public class PostExportService {
+
+    /** 出力先に書き出す間隔（件数） ※クライアントが少しずつ受け取れるようにするため */
+    private static final int FLUSH_INTERVAL = 1000;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final String CSV_HEADER = "id,userId,userEmail,userName,title,content,ageId,ageValue,imageUrl,"
+            + "createdAt,updatedAt";
+
+    private final PostRepository postRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 出力形式
+     */
+    public enum Format {
+        /** 1行に1件のJSONを出力する形式 */
+        NDJSON(MediaType.APPLICATION_NDJSON, "ndjson"),
+
+        /** カンマ区切りの形式（1行目はヘッダー） */
+        CSV(new MediaType("text", "csv", StandardCharsets.UTF_8), "csv");
+
+        private final MediaType mediaType;
+        private final String extension;
+
+        Format(MediaType mediaType, String extension) {
+            this.mediaType = mediaType;
+            this.extension = extension;
+        }
+
+        public MediaType getMediaType() {
+            return mediaType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        /**
+         * リクエストパラメータの値から出力形式を取得する
+         *
+         * @param value 出力形式（大文字、小文字は区別しない）
+         * @return 出力形式
+         * @throws InvalidRequestException 対応していない出力形式の場合
+         */
+        public static Format from(String value) {
+            try {
+                return Format.valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new InvalidRequestException("format", "対応していない出力形式です：" + value, e);
+            }
+        }
+    }
+
+    /**
+     * コンストラクタ
+     *
+     * @param postRepository 投稿データへのアクセスを提供するリポジトリ
+     * @param objectMapper   投稿をJSONに変換するためのマッパー
+     */
+    public PostExportService(PostRepository postRepository, ObjectMapper objectMapper) {
+        this.postRepository = postRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * すべての投稿を指定された形式で出力する
+     * ※DBのカーソルを使用するため、出力が終わるまでトランザクション（DBの接続）を保持し続ける
+     *
+     * @param format       出力形式
+     * @param outputStream 出力先
+     * @throws IOException 出力に失敗した場合（クライアントが切断した場合など）
+     */
+    @Transactional(readOnly = true)
+    public void export(Format format, OutputStream outputStream) throws IOException {
+        OutputStream out = new BufferedOutputStream(outputStream, BUFFER_SIZE);
+        if (format == Format.CSV) {
+            out.write((CSV_HEADER + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+
+        try (Stream<PostResponseDto> posts = postRepository.streamAllPostResponseDtos()) {
+            int count = 0;
+            Iterator<PostResponseDto> iterator = posts.iterator();
+            while (iterator.hasNext()) {
+                PostResponseDto post = iterator.next();
+                if (format == Format.CSV) {
+                    out.write(toCsvLine(post).getBytes(StandardCharsets.UTF_8));
+                } else {
+                    out.write(objectMapper.writeValueAsBytes(post));
+                    out.write('\n');
+                }
+
+                if (++count % FLUSH_INTERVAL == 0) {
+                    out.flush();
+                }
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * 投稿をCSVの1行に変換する
+     */
+    private String toCsvLine(PostResponseDto post) {
+        return String.join(",",
+                csvValue(post.getId()),
+                csvValue(post.getUserId()),
+                csvValue(post.getUserEmail()),
+                csvValue(post.getUserName()),
+                csvValue(post.getTitle()),
+                csvValue(post.getContent()),
+                csvValue(post.getAgeId()),
+                csvValue(post.getAgeValue()),
+                csvValue(post.getImageUrl()),
+                csvValue(post.getCreatedAt()),
+                csvValue(post.getUpdatedAt())) + "\n";
+    }
+
+    /**
+     * CSVの値を作成する（カンマ、ダブルクォート、改行を含む場合はダブルクォートで囲む）
+     */
+    private String csvValue(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.contains(",") || text.contains("\"") || text.contains("\n") || text.contains("\r")) {
+            return "\"" + text.replace("\"", "\"\"") + "\"";
+        }
+        return text;
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.dog_crud_spring_boot.service;
+
+import com.example.dog_crud_spring_boot.repository.PostRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * 論理削除された投稿を定期的に物理削除するサービスクラス
+ * 削除は少しずつ（チャンクごとに別のトランザクションで）行い、1回のトランザクションで多くの行をロックしないようにする。
+ */
+@Service
+public class PostPurgeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostPurgeService.class);
+
+    private final PostRepository postRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration retention;
+    private final int chunkSize;
+    private final int maxChunksPerRun;
+
+    /**
+     * コンストラクタ
+     *
+     * @param postRepository     投稿データへのアクセスを提供するリポジトリ
+     * @param transactionManager チャンクごとのトランザクションを開始するトランザクションマネージャー
+     * @param retention          論理削除してから物理削除するまでの期間
+     * @param chunkSize          1回のトランザクションで物理削除する件数
+     * @param maxChunksPerRun    1回の実行で処理するチャンク数の上限（残りは次回の実行で削除する）
+     */
+    public PostPurgeService(PostRepository postRepository, PlatformTransactionManager transactionManager,
+            @Value("${app.posts.purge.retention}") Duration retention,
+            @Value("${app.posts.purge.chunk-size}") int chunkSize,
+            @Value("${app.posts.purge.max-chunks-per-run}") int maxChunksPerRun) {
+        this.postRepository = postRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.retention = retention;
+        this.chunkSize = chunkSize;
+        this.maxChunksPerRun = maxChunksPerRun;
+    }
+
+    /**
+     * 保持期間を過ぎた論理削除済みの投稿を物理削除する
+     *
+     * @return 物理削除した件数
+     */
+    @Scheduled(fixedDelayString = "${app.posts.purge.interval}", initialDelayString = "${app.posts.purge.interval}")
+    public int purge() {
+        LocalDateTime threshold = LocalDateTime.now().minus(retention);
+        int total = 0;
+        for (int chunk = 0; chunk < maxChunksPerRun; chunk++) {
+            Integer deleted = transactionTemplate.execute(
+                    status -> postRepository.purgeDeletedBefore(threshold, chunkSize));
+            total += deleted;
+            if (deleted < chunkSize) {
+                break;
+            }
+        }
+        if (total > 0) {
+            logger.info("論理削除された投稿を物理削除しました（{}件）", total);
+        }
+        return total;
+    }
+}
@@ -1,53 +1,110 @@
 package com.example.dog_crud_spring_boot.service;
 
+import com.example.dog_crud_spring_boot.dto.PostCompactPageResponseDto;
+import com.example.dog_crud_spring_boot.dto.PostPageResponseDto;
 import com.example.dog_crud_spring_boot.dto.PostRequestDto;
 import com.example.dog_crud_spring_boot.dto.PostResponseDto;
+import com.example.dog_crud_spring_boot.dto.PostSearchResponseDto;
+import com.example.dog_crud_spring_boot.dto.PostSummaryDto;
+import com.example.dog_crud_spring_boot.dto.PostVersionDto;
+import com.example.dog_crud_spring_boot.dto.UserResponseDto;
+import com.example.dog_crud_spring_boot.event.PostChangedEvent;
+import com.example.dog_crud_spring_boot.image.ImageUrls;
 import com.example.dog_crud_spring_boot.model.Age;
 import com.example.dog_crud_spring_boot.model.Post;
 import com.example.dog_crud_spring_boot.model.User;
-import com.example.dog_crud_spring_boot.repository.AgeRepository;
+import com.example.dog_crud_spring_boot.repository.PostCollectionVersionRepository;
 import com.example.dog_crud_spring_boot.repository.PostRepository;
+import com.example.dog_crud_spring_boot.repository.UserRepository;
+import com.example.dog_crud_spring_boot.search.PostSearchIndex;
+import com.example.dog_crud_spring_boot.search.SearchIndexNotReadyException;
+import com.example.dog_crud_spring_boot.security.LoginUser;
+
+import io.micrometer.core.annotation.Timed;
 
 import jakarta.validation.ValidationException;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
 import java.nio.file.AccessDeniedException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * 投稿に関するビジネスロジックを提供するサービスクラス。
  * すべての投稿の取得、特定のidの投稿の取得、投稿の作成、更新、削除処理を担当する。
+ * ※すべてのpublicメソッドの処理時間を計測する（メトリクス名: posts.service、タグ: class, method, exception）
  */
 @Service
+@Timed(value = "posts.service", histogram = true)
 public class PostService {
 
     private final PostRepository postRepository;
-    private final AgeRepository ageRepository;
+    private final PostCollectionVersionRepository postCollectionVersionRepository;
+    private final UserRepository userRepository;
+    private final AgeCache ageCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PostSearchIndex postSearchIndex;
+    private final int defaultPageSize;
+    private final int maxPageSize;
     private static final String TARGET_DATA_NOT_FOUND = "指定された投稿が存在しません";
     private static final String WRONG_AGE_DATA = "送信された年齢のデータが不正です";
     private static final String NO_PERMISSION = "この操作を実行する権限がありません";
+    private static final String EMPTY_KEYWORD = "検索キーワードを入力してください";
+    private static final String WRONG_PAGE = "ページ番号が不正です";
 
     /**
      * コンストラクタ
      * 
      * @param postRepository 投稿データへのアクセスを提供するリポジトリ
-     * @param ageRepository  年齢データへのアクセスを提供するリポジトリ
+     * @param postCollectionVersionRepository 投稿一覧のバージョンへのアクセスを提供するリポジトリ
+     * @param userRepository ユーザーデータへのアクセスを提供するリポジトリ
+     * @param ageCache       年齢のマスタデータを保持するキャッシュ
+     * @param eventPublisher 投稿の変更を通知するためのイベント発行元
+     * @param postSearchIndex 投稿の全文検索のインデックス
+     * @param defaultPageSize フィードの1ページあたりの件数（指定がない場合）
+     * @param maxPageSize     フィードの1ページあたりの件数の上限
      */
-    public PostService(PostRepository postRepository, AgeRepository ageRepository) {
+    public PostService(PostRepository postRepository, PostCollectionVersionRepository postCollectionVersionRepository,
+            UserRepository userRepository, AgeCache ageCache,
+            ApplicationEventPublisher eventPublisher, PostSearchIndex postSearchIndex,
+            @Value("${app.posts.feed.default-page-size}") int defaultPageSize,
+            @Value("${app.posts.feed.max-page-size}") int maxPageSize) {
         this.postRepository = postRepository;
-        this.ageRepository = ageRepository;
+        this.postCollectionVersionRepository = postCollectionVersionRepository;
+        this.userRepository = userRepository;
+        this.ageCache = ageCache;
+        this.eventPublisher = eventPublisher;
+        this.postSearchIndex = postSearchIndex;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
     }
 
     /**
      * Postをフロントエンド側に返却するDTOに変換する
+     * ※ユーザーと年齢は遅延読み込みのため、トランザクション内で呼び出すこと。
+     * 複数の投稿を返す場合は、この変換ではなくリポジトリの結合クエリで直接DTOを取得すること
+     * ※ベンチマーク（src/jmh）から呼び出せるよう、パッケージプライベートとしている
      * 
      * @param post DTOに変換する対象
      * @return フロントエンド側に返却するPostのDTO
      */
-    private PostResponseDto convertPostToPostResponseDto(Post post) {
+    PostResponseDto convertPostToPostResponseDto(Post post) {
         PostResponseDto dto = new PostResponseDto();
         dto.setId(post.getId());
         dto.setUserId(post.getUser().getId());
@@ -58,9 +115,11 @@ public class PostService {
         dto.setAgeId(post.getAge().getId());
         dto.setAgeValue(post.getAge().getValue());
         dto.setImageUrl(post.getImageUrl());
+        dto.setThumbnailUrl(ImageUrls.thumbnailUrlOf(post.getImageUrl()));
         dto.setCreatedAt(post.getCreatedAt());
         dto.setUpdatedAt(post.getUpdatedAt());
         dto.setDeletedAt(post.getDeletedAt());
+        dto.setVersion(post.getVersion());
         return dto;
     }
 
@@ -69,8 +128,212 @@ public class PostService {
      * 
      * @return すべての投稿
      */
+    @Transactional(readOnly = true)
     public List<PostResponseDto> getAllPosts() {
-        return postRepository.findAll().stream().map(this::convertPostToPostResponseDto).toList();
+        return postRepository.findAllPostResponseDtos();
+    }
+
+    /**
+     * 投稿一覧（フィード）を1ページ分取得する
+     * 作成日時、IDをキーにしたキーセットページングを行うため、何ページ目でも取得コストは変わらない。
+     *
+     * @param cursor 前のページで返却されたカーソル（先頭ページの場合はnull）
+     * @param size   1ページあたりの件数（nullの場合はデフォルト値、上限を超える場合は上限値を使用する）
+     * @return 1ページ分の投稿と、次のページのカーソル
+     * @throws InvalidRequestException カーソルの形式が不正な場合
+     */
+    @Transactional(readOnly = true)
+    public PostPageResponseDto getFeed(String cursor, Integer size) {
+        int pageSize = (size == null || size <= 0) ? defaultPageSize : Math.min(size, maxPageSize);
+
+        // 次のページが存在するかを判定するため、1件多く取得する
+        PageRequest limit = PageRequest.ofSize(pageSize + 1);
+        List<PostResponseDto> posts;
+        if (cursor == null || cursor.isEmpty()) {
+            posts = postRepository.findFeedFirstPage(limit);
+        } else {
+            PostCursor decoded = PostCursor.decode(cursor);
+            posts = postRepository.findFeedPageAfter(decoded.createdAt(), decoded.id(), limit);
+        }
+
+        return toPage(posts, pageSize);
+    }
+
+    /**
+     * 特定のユーザーの投稿一覧を1ページ分取得する（新しい順）
+     * フィードと同じく、作成日時、IDをキーにしたキーセットページングを行う。
+     *
+     * @param userId ユーザーのID
+     * @param cursor 前のページで返却されたカーソル（先頭ページの場合はnull）
+     * @param size   1ページあたりの件数（nullの場合はデフォルト値、上限を超える場合は上限値を使用する）
+     * @return 1ページ分の投稿と、次のページのカーソル（ユーザーが存在しない場合は空のOptional）
+     * @throws InvalidRequestException カーソルの形式が不正な場合
+     */
+    @Transactional(readOnly = true)
+    public Optional<PostPageResponseDto> getUserPosts(Long userId, String cursor, Integer size) {
+        int pageSize = (size == null || size <= 0) ? defaultPageSize : Math.min(size, maxPageSize);
+
+        // 次のページが存在するかを判定するため、1件多く取得する
+        PageRequest limit = PageRequest.ofSize(pageSize + 1);
+        List<PostResponseDto> posts;
+        if (cursor == null || cursor.isEmpty()) {
+            posts = postRepository.findUserPostsFirstPage(userId, limit);
+        } else {
+            PostCursor decoded = PostCursor.decode(cursor);
+            posts = postRepository.findUserPostsPageAfter(userId, decoded.createdAt(), decoded.id(), limit);
+        }
+
+        // 投稿が1件もない場合のみ、ユーザーが存在するかを確認する
+        if (posts.isEmpty() && !userRepository.existsById(userId)) {
+            return Optional.empty();
+        }
+        return Optional.of(toPage(posts, pageSize));
+    }
+
+    /**
+     * 1件多く取得した投稿から、1ページ分の投稿と次のページのカーソルを作成する
+     *
+     * @param posts    取得した投稿（1ページあたりの件数より1件多く取得したもの）
+     * @param pageSize 1ページあたりの件数
+     * @return 1ページ分の投稿と、次のページのカーソル
+     */
+    private PostPageResponseDto toPage(List<PostResponseDto> posts, int pageSize) {
+        boolean hasNext = posts.size() > pageSize;
+        List<PostResponseDto> page = hasNext ? posts.subList(0, pageSize) : posts;
+
+        PostPageResponseDto response = new PostPageResponseDto();
+        response.setPosts(page);
+        if (hasNext) {
+            PostResponseDto last = page.get(page.size() - 1);
+            response.setNextCursor(new PostCursor(last.getCreatedAt(), last.getId()).encode());
+        }
+        return response;
+    }
+
+    /**
+     * 投稿一覧（フィード）を1ページ分、コンパクト形式で取得する
+     * 取得する投稿は {@link #getFeed(String, Integer)} と同じで、ユーザーの情報、年齢の値を投稿ごとではなく
+     * ページごとに1回だけ返すことで、レスポンスのサイズとJSONへの変換の処理量を減らす。
+     *
+     * @param cursor 前のページで返却されたカーソル（先頭ページの場合はnull）
+     * @param size   1ページあたりの件数（nullの場合はデフォルト値、上限を超える場合は上限値を使用する）
+     * @return 1ページ分の投稿、ユーザー・年齢の辞書と、次のページのカーソル
+     * @throws InvalidRequestException カーソルの形式が不正な場合
+     */
+    @Transactional(readOnly = true)
+    public PostCompactPageResponseDto getCompactFeed(String cursor, Integer size) {
+        PostPageResponseDto page = getFeed(cursor, size);
+
+        List<PostSummaryDto> posts = new ArrayList<>(page.getPosts().size());
+        Map<Long, UserResponseDto> users = new LinkedHashMap<>();
+        Map<Long, String> ages = new LinkedHashMap<>();
+        for (PostResponseDto post : page.getPosts()) {
+            PostSummaryDto summary = new PostSummaryDto();
+            summary.setId(post.getId());
+            summary.setUserId(post.getUserId());
+            summary.setTitle(post.getTitle());
+            summary.setContent(post.getContent());
+            summary.setAgeId(post.getAgeId());
+            summary.setImageUrl(post.getImageUrl());
+            summary.setThumbnailUrl(post.getThumbnailUrl());
+            summary.setCreatedAt(post.getCreatedAt());
+            summary.setUpdatedAt(post.getUpdatedAt());
+            summary.setVersion(post.getVersion());
+            posts.add(summary);
+
+            users.computeIfAbsent(post.getUserId(), userId -> {
+                UserResponseDto user = new UserResponseDto();
+                user.setId(userId);
+                user.setEmail(post.getUserEmail());
+                user.setUserName(post.getUserName());
+                return user;
+            });
+            ages.putIfAbsent(post.getAgeId(), post.getAgeValue());
+        }
+
+        PostCompactPageResponseDto response = new PostCompactPageResponseDto();
+        response.setPosts(posts);
+        response.setUsers(users);
+        response.setAges(ages);
+        response.setNextCursor(page.getNextCursor());
+        return response;
+    }
+
+    /**
+     * タイトル、内容にキーワードを含む投稿を関連度の高い順に検索する
+     * 検索は全文検索のインデックスで行い、DBからは該当したページの投稿のみを取得する。
+     *
+     * @param keyword キーワード
+     * @param ageId   年齢のID（nullの場合は絞り込まない）
+     * @param page    ページ番号（0始まり）
+     * @param size    1ページあたりの件数（nullの場合はデフォルト値、上限を超える場合は上限値を使用する）
+     * @return 検索結果
+     * @throws InvalidRequestException      キーワードが空、またはページ番号が不正な場合
+     * @throws SearchIndexNotReadyException 起動時の検索インデックスの作成が終わっていない場合
+     * @throws IOException                  インデックスの読み込みに失敗した場合
+     */
+    @Transactional(readOnly = true)
+    public PostSearchResponseDto searchPosts(String keyword, Long ageId, int page, Integer size) throws IOException {
+        if (keyword == null || keyword.isBlank()) {
+            throw new InvalidRequestException("keyword", EMPTY_KEYWORD);
+        }
+        if (page < 0) {
+            throw new InvalidRequestException("page", WRONG_PAGE);
+        }
+        int pageSize = (size == null || size <= 0) ? defaultPageSize : Math.min(size, maxPageSize);
+
+        // ページ番号が大きすぎて取得する範囲（開始位置〜終了位置）がintの範囲を超える場合も、不正なページ番号として扱う
+        int offset;
+        try {
+            offset = Math.multiplyExact(page, pageSize);
+            Math.addExact(offset, pageSize);
+        } catch (ArithmeticException e) {
+            throw new InvalidRequestException("page", WRONG_PAGE);
+        }
+
+        PostSearchIndex.Result result = postSearchIndex.search(keyword, ageId, offset, pageSize);
+
+        // DBから取得した投稿を、検索結果の順番（関連度の高い順）に並べ直す
+        // ※インデックスへの反映前に削除された投稿は取得できないため除外する
+        Map<Long, PostResponseDto> postsById = postRepository.findPostResponseDtosByIdIn(result.postIds()).stream()
+                .collect(Collectors.toMap(PostResponseDto::getId, Function.identity()));
+        List<PostResponseDto> posts = result.postIds().stream()
+                .map(postsById::get)
+                .filter(Objects::nonNull)
+                .toList();
+
+        PostSearchResponseDto response = new PostSearchResponseDto();
+        response.setPosts(posts);
+        response.setTotalHits(result.totalHits());
+        response.setPage(page);
+        response.setSize(pageSize);
+        return response;
+    }
+
+    /**
+     * 特定のidの投稿のバージョンと更新日時を取得する（投稿の内容は変換しない）
+     * 条件付きGETで、クライアントが保持している投稿が最新かどうかを判定するために使用する。
+     * ※投稿は2次キャッシュから取得されるため、通常はDBにアクセスしない
+     *
+     * @param id 投稿のID
+     * @return バージョンと更新日時（投稿が存在しない場合は空）
+     */
+    @Transactional(readOnly = true)
+    public Optional<PostVersionDto> getPostVersion(Long id) {
+        return findLivePostById(id)
+                .map(post -> new PostVersionDto(post.getVersion(), post.getUpdatedAt()));
+    }
+
+    /**
+     * 投稿一覧のバージョンを取得する
+     * 投稿が作成、更新、削除されたトランザクションがコミットされると必ず進むため、投稿一覧の条件付きGETに使用する。
+     * ※投稿一覧より先に取得すること（後に取得すると、取得した投稿一覧より新しいバージョンを返すことがある）
+     *
+     * @return 投稿一覧のバージョン（まだ投稿が1件も変更されていない場合は空）
+     */
+    @Transactional(readOnly = true)
+    public Optional<Long> getPostsVersion() {
+        return postCollectionVersionRepository.findVersion();
     }
 
     /**
@@ -79,8 +342,18 @@ public class PostService {
      * @param id 投稿のID
      * @return 該当する投稿（存在しない場合は空のOptional）
      */
+    @Transactional(readOnly = true)
     public Optional<PostResponseDto> getPostById(Long id) {
-        return postRepository.findById(id).map(this::convertPostToPostResponseDto);
+        // 投稿、作成者、年齢はいずれも2次キャッシュから取得されるため、繰り返し参照される投稿はDBにアクセスしない
+        return findLivePostById(id).map(this::convertPostToPostResponseDto);
+    }
+
+    /**
+     * IDを指定して、削除されていない投稿を取得する
+     * ※2次キャッシュから取得した場合は@SQLRestrictionの条件が適用されないため、削除日時を確認する
+     */
+    private Optional<Post> findLivePostById(Long id) {
+        return postRepository.findById(id).filter(post -> post.getDeletedAt() == null);
     }
 
     /**
@@ -90,12 +363,15 @@ public class PostService {
      * @return 保存された投稿オブジェクト
      * @throws ValidationException 年齢IDが存在しない場合にスローされる
      */
+    @Transactional
     public PostResponseDto createPost(PostRequestDto request, Authentication authentication) {
         // 入力された年齢IDに対応するAgeデータを取得（存在しなければ例外）
-        Age age = ageRepository.findById(request.getAgeId())
+        Age age = ageCache.findById(request.getAgeId())
                 .orElseThrow(() -> new ValidationException(WRONG_AGE_DATA));
 
-        User user = (User) authentication.getPrincipal();
+        // 投稿者はIDのみ分かればよいため、DBから取得せずに参照だけを作成する
+        LoginUser loginUser = (LoginUser) authentication.getPrincipal();
+        User user = userRepository.getReferenceById(loginUser.getId());
 
         // 投稿データの作成と各フィールドの設定
         Post post = new Post();
@@ -107,12 +383,14 @@ public class PostService {
 
         // 投稿データを保存して返却する
         Post savedPost = postRepository.save(post);
+        eventPublisher.publishEvent(PostChangedEvent.of(PostChangedEvent.Type.CREATED, savedPost.getId()));
         PostResponseDto response = convertPostToPostResponseDto(savedPost);
         return response;
     }
 
     /**
      * 投稿の作成者とログインしているユーザーが同じかを確認し、同じでなければ例外を投げる
+     * ※作成者は遅延読み込みの参照（プロキシ）のままIDのみを比較するため、ユーザーは読み込まない
      * 
      * @param post           確認対象の投稿
      * @param authentication ログインしているユーザー
@@ -120,7 +398,7 @@ public class PostService {
      */
     private void validateUserOwnership(Post post, Authentication authentication) throws AccessDeniedException {
         // 認証されたユーザーを取得
-        User authenticatedUser = (User) authentication.getPrincipal();
+        LoginUser authenticatedUser = (LoginUser) authentication.getPrincipal();
 
         // 投稿の所有者と認証されたユーザーが一致するか確認
         if (!post.getUser().getId().equals(authenticatedUser.getId())) {
@@ -131,22 +409,38 @@ public class PostService {
     /**
      * 指定されたIDの投稿を更新する
      *
-     * @param id      更新対象の投稿ID
-     * @param request 更新後の投稿データ（バリデーション済み）
+     * ※同じ投稿が同時に更新された場合、後から反映しようとした更新は楽観的ロックにより失敗する（上書きされない）
+     * ※投稿は通常2次キャッシュから取得され、作成者・年齢も読み込まないため、発行されるSQLは投稿のUPDATE文の1回のみとなる
+     * （ほかにコミットの直前に投稿一覧のバージョンのUPDATE文、投稿が2次キャッシュにない場合は投稿のSELECT文が発行される）。
+     * 作成者をWHERE句に含めた更新クエリ（UPDATE ... WHERE id = ? AND user_id = ?）にすると、Hibernateは
+     * 一括更新として投稿の2次キャッシュ全体を破棄してしまうため、エンティティを変更して更新する
+     *
+     * @param id              更新対象の投稿ID
+     * @param request         更新後の投稿データ（バリデーション済み）
+     * @param expectedVersions クライアントが編集を始めたときの投稿のバージョン（If-Matchに複数のETagを指定できるため複数。
+     *                         いずれかと一致すれば更新する。nullの場合は確認しない）
      * @return 更新された投稿オブジェクト
+     * @throws ObjectOptimisticLockingFailureException 投稿のバージョンが指定されたいずれのバージョンとも異なる、
+     *                                                 または同時に他の更新が反映された場合
      */
-    public PostResponseDto updatePost(Long id, PostRequestDto request, Authentication authentication)
-            throws AccessDeniedException {
+    @Transactional
+    public PostResponseDto updatePost(Long id, PostRequestDto request, Collection<Long> expectedVersions,
+            Authentication authentication) throws AccessDeniedException {
         // 指定された投稿IDの投稿データを取得（存在しなければ例外）
-        Post post = postRepository.findById(id)
+        Post post = findLivePostById(id)
                 .orElseThrow(() -> new ValidationException(TARGET_DATA_NOT_FOUND));
 
+        // 更新しようとしたユーザーと作成者が同じかを確認する（異なっていれば例外を投げることで処理を中断するためreturnは不要）
+        validateUserOwnership(post, authentication);
+
         // 入力された年齢IDに対応するAgeデータを取得（存在しなければ例外）
-        Age age = ageRepository.findById(request.getAgeId())
+        Age age = ageCache.findById(request.getAgeId())
                 .orElseThrow(() -> new ValidationException(WRONG_AGE_DATA));
 
-        // 更新しようとしたユーザーと作成者が同じかを確認する（異なっていれば例外を投げることで処理を中断するためreturnは不要）
-        validateUserOwnership(post, authentication);
+        // クライアントが編集を始めてから、他の更新が反映されていないかを確認する
+        if (expectedVersions != null && !expectedVersions.contains(post.getVersion())) {
+            throw new ObjectOptimisticLockingFailureException(Post.class, id);
+        }
 
         // 投稿内容の更新
         post.setTitle(request.getTitle());
@@ -154,27 +448,35 @@ public class PostService {
         post.setImageUrl(request.getImageUrl());
         post.setAge(age);
 
-        // 更新内容を保存して返却する
-        Post savedPost = postRepository.save(post);
-        PostResponseDto response = convertPostToPostResponseDto(savedPost);
+        // 更新内容を反映して返却する
+        // ※取得したエンティティは管理状態のため、save（merge）は呼ばず変更の検知で変更された項目のみを更新する。
+        // 返却するバージョン、更新日時を確定させるため、ここでUPDATE文を発行する
+        postRepository.flush();
+        eventPublisher.publishEvent(PostChangedEvent.of(PostChangedEvent.Type.UPDATED, post.getId()));
+        PostResponseDto response = convertPostToPostResponseDto(post);
         return response;
     }
 
     /**
      * 指定されたIDの投稿を削除する。
+     * ※削除日時を設定する論理削除とし、物理削除は {@link PostPurgeService} がまとめて行う
+     * （行ロックの時間を短くし、削除のリクエストを速く返すため）
+     * ※更新と同様に、投稿が2次キャッシュにあれば発行される投稿のSQLはUPDATE文の1回のみとなる
      *
      * @param id 削除対象の投稿ID
      */
+    @Transactional
     public void deletePost(Long id, Authentication authentication)
             throws AccessDeniedException {
         // 指定された投稿IDの投稿データを取得（存在しなければ例外）
-        Post post = postRepository.findById(id)
+        Post post = findLivePostById(id)
                 .orElseThrow(() -> new ValidationException(TARGET_DATA_NOT_FOUND));
 
         // 削除しようとしたユーザーと作成者が同じかを確認する（異なっていれば例外を投げることで処理を中断するためreturnは不要）
         validateUserOwnership(post, authentication);
 
-        // 投稿の削除処理を実行
-        postRepository.delete(post);
+        // 投稿の削除処理を実行（削除日時を設定し、変更の検知によりUPDATE文が発行される）
+        post.markDeleted();
+        eventPublisher.publishEvent(PostChangedEvent.of(PostChangedEvent.Type.DELETED, id));
     }
 }
@@ -0,0 +1,133 @@
+package com.example.dog_crud_spring_boot.service;
+
+import com.example.dog_crud_spring_boot.repository.UserRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+/**
+ * 登録済みのメールアドレスを保持するブルームフィルタ
+ * 「登録されていない」と判定したメールアドレスは確実に登録されていないため、ユーザー登録時にDBでの確認を省略できる。
+ * 「登録されている可能性がある」と判定した場合は誤判定の可能性がある（設定した誤判定率）ため、DBで確認すること。
+ * ※ビットの設定はCAS（比較して交換）で行うため、ロックを使用せずに複数のスレッドから同時に使用できる
+ */
+@Component
+public class RegisteredEmailFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RegisteredEmailFilter.class);
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+
+    /**
+     * コンストラクタ
+     * 想定する件数と誤判定率から、必要なビット数とハッシュ関数の数を決める
+     *
+     * @param userRepository     ユーザーデータへのアクセスを提供するリポジトリ
+     * @param transactionManager 起動時に登録済みのメールアドレスを読み込むときに使用するトランザクションマネージャー
+     * @param expectedInsertions 想定する登録済みのメールアドレスの件数（超えると誤判定率が上がる）
+     * @param falsePositiveRate  登録されていないメールアドレスを「登録されている可能性がある」と判定する割合
+     */
+    public RegisteredEmailFilter(UserRepository userRepository, PlatformTransactionManager transactionManager,
+            @Value("${app.users.email-filter.expected-insertions}") long expectedInsertions,
+            @Value("${app.users.email-filter.false-positive-rate}") double falsePositiveRate) {
+        this.userRepository = userRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+
+        double ln2 = Math.log(2);
+        long optimalBits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (ln2 * ln2));
+        int words = (int) Math.max(1, (optimalBits + Long.SIZE - 1) / Long.SIZE);
+        this.bits = new AtomicLongArray(words);
+        this.bitCount = (long) words * Long.SIZE;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * ln2));
+    }
+
+    /**
+     * 起動時に登録済みのすべてのメールアドレスを読み込む
+     * ※読み込みが終わる前に登録されたメールアドレスも、登録時に追加されるため漏れない
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long count = readOnlyTransaction.execute(status -> {
+            try (Stream<String> emails = userRepository.streamAllEmails()) {
+                return emails.mapToLong(email -> {
+                    add(email);
+                    return 1;
+                }).sum();
+            }
+        });
+        logger.info("登録済みのメールアドレスのフィルタを作成しました（{}件、{}ビット、ハッシュ関数{}個）",
+                count, bitCount, hashCount);
+    }
+
+    /**
+     * メールアドレスが登録されている可能性があるかを判定する
+     *
+     * @param email メールアドレス
+     * @return 登録されている可能性がある場合はtrue（falseの場合は確実に登録されていない）
+     */
+    public boolean mightContain(String email) {
+        long hash1 = hash(email);
+        long hash2 = mix(hash1);
+        for (int i = 0; i < hashCount; i++) {
+            long index = Math.floorMod(hash1 + i * hash2, bitCount);
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * メールアドレスを登録済みとして追加する
+     *
+     * @param email メールアドレス
+     */
+    public void add(String email) {
+        long hash1 = hash(email);
+        long hash2 = mix(hash1);
+        for (int i = 0; i < hashCount; i++) {
+            long index = Math.floorMod(hash1 + i * hash2, bitCount);
+            long mask = 1L << index;
+            bits.getAndAccumulate((int) (index >>> 6), mask, (current, bit) -> current | bit);
+        }
+    }
+
+    /**
+     * メールアドレスのハッシュ値（FNV-1a、64ビット）を計算する
+     * ※DBの一意制約は大文字と小文字を区別しない場合があるため、小文字に揃えてから計算する
+     */
+    private static long hash(String email) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : email.toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * ハッシュ値から2つ目のハッシュ値を作る（SplitMix64の最終処理）
+     * ※2つのハッシュ値の組み合わせ（hash1 + i × hash2）で、ハッシュ関数の数だけの位置を決める
+     */
+    private static long mix(long hash) {
+        hash = (hash ^ (hash >>> 30)) * 0xbf58476d1ce4e5b9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+        return (hash ^ (hash >>> 31)) | 1L;
+    }
+}
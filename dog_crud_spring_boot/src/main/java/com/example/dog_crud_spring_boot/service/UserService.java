@@ -0,0 +1,91 @@
+package com.example.dog_crud_spring_boot.service;
+
+import com.example.dog_crud_spring_boot.dto.UserResponseDto;
+import com.example.dog_crud_spring_boot.model.User;
+import com.example.dog_crud_spring_boot.repository.UserRepository;
+import com.example.dog_crud_spring_boot.security.OffloadingPasswordEncoder;
+import com.example.dog_crud_spring_boot.security.PasswordHashingBusyException;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * ユーザーに関するビジネスロジックを提供するサービスクラス
+ * ユーザーの登録処理を担当する。
+ */
+@Service
+public class UserService {
+
+    private static final String EMAIL_ALREADY_USED = "このメールアドレスは既に使われています";
+
+    private final UserRepository userRepository;
+    private final OffloadingPasswordEncoder passwordEncoder;
+    private final RegisteredEmailFilter registeredEmailFilter;
+    private final Executor taskExecutor;
+
+    /**
+     * コンストラクタ
+     *
+     * @param userRepository        ユーザーデータへのアクセスを提供するリポジトリ
+     * @param passwordEncoder       パスワードを専用のスレッドプールでハッシュ化するエンコーダー
+     * @param registeredEmailFilter 登録済みのメールアドレスを保持するフィルタ
+     * @param taskExecutor          ハッシュ化の完了後にユーザーを保存する処理を実行するExecutor
+     */
+    public UserService(UserRepository userRepository, OffloadingPasswordEncoder passwordEncoder,
+            RegisteredEmailFilter registeredEmailFilter,
+            @Qualifier("applicationTaskExecutor") Executor taskExecutor) {
+        this.userRepository = userRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.registeredEmailFilter = registeredEmailFilter;
+        this.taskExecutor = taskExecutor;
+    }
+
+    /**
+     * 新しいユーザーを登録する
+     * メールアドレスの重複はDBの一意制約で判定し、保存は1回のINSERT文のみで行う。
+     * ただし、フィルタで登録されている可能性があると判定したメールアドレスは、時間のかかるハッシュ化の前にDBで確認して拒否する。
+     * パスワードのハッシュ化は専用のスレッドプールで行い、呼び出し元のスレッドは完了を待たない。
+     *
+     * @param user 登録対象のユーザー情報（パスワードはハッシュ化前の値）
+     * @return 登録されたユーザーのID、メールアドレス、名前
+     *         （メールアドレスが既に登録されている場合は InvalidRequestException で失敗する）
+     * @throws InvalidRequestException      メールアドレスが既に登録されている場合
+     * @throws PasswordHashingBusyException ハッシュ化の待ち行列が一杯の場合
+     */
+    public CompletableFuture<UserResponseDto> register(User user) {
+        if (registeredEmailFilter.mightContain(user.getEmail()) && userRepository.existsByEmail(user.getEmail())) {
+            throw new InvalidRequestException("email", EMAIL_ALREADY_USED);
+        }
+
+        // ハッシュ化の完了後、DBへの保存はハッシュ化を行うスレッドではなく別のExecutorで行う
+        return passwordEncoder.encodeAsync(user.getPassword())
+                .thenApplyAsync(hash -> {
+                    user.setPassword(hash);
+                    return insert(user);
+                }, taskExecutor);
+    }
+
+    /**
+     * ユーザーを保存する（一意制約に違反した場合は、メールアドレスが既に登録されているとみなす）
+     */
+    private UserResponseDto insert(User user) {
+        User savedUser;
+        try {
+            savedUser = userRepository.save(user);
+        } catch (DataIntegrityViolationException e) {
+            registeredEmailFilter.add(user.getEmail());
+            throw new InvalidRequestException("email", EMAIL_ALREADY_USED, e);
+        }
+        registeredEmailFilter.add(savedUser.getEmail());
+
+        UserResponseDto userResponse = new UserResponseDto();
+        userResponse.setId(savedUser.getId());
+        userResponse.setEmail(savedUser.getEmail());
+        userResponse.setUserName(savedUser.getUserName());
+        return userResponse;
+    }
+}
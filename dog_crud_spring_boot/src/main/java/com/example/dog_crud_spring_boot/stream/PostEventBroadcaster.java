@@ -0,0 +1,436 @@
+package com.example.dog_crud_spring_boot.stream;
+
+import com.example.dog_crud_spring_boot.dto.PostResponseDto;
+import com.example.dog_crud_spring_boot.event.PostChangedEvent;
+import com.example.dog_crud_spring_boot.repository.PostRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 投稿の作成、更新、削除をServer-Sent Eventsで購読中のクライアントに配信するクラス
+ * クライアントは投稿一覧を定期的に取得し直す代わりに、変更があったときだけ変更された投稿を受け取る。
+ *
+ * ・配信する内容は1つの配信用スレッドで順番に処理し、イベントIDの採番、再送用の履歴の管理、各購読者への振り分けを行う
+ * ・購読者ごとに上限のある送信待ちのキューを持ち、送信は送信用のスレッドプールで行う（遅いクライアントが他の購読者を待たせない）
+ * ・送信待ちが上限を超えた購読者（受信が追いつかないクライアント）は切断する。クライアントは再接続時に
+ * Last-Event-IDを送信し、直近の履歴から続きを受け取る（履歴に残っていない場合は投稿一覧の取得し直しを指示する）
+ * ・1回の送信が上限の時間を過ぎても終わらない購読者（書き込みが止まっているクライアント）は、次のイベントまたはハートビートの配信時に切断し、
+ * 送信が戻るまでの間は送信用のスレッドを1つ追加する（止まった書き込みが送信用のスレッドを占有し、他の購読者への送信が止まらないようにする）
+ */
+@Component
+public class PostEventBroadcaster implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostEventBroadcaster.class);
+
+    /** 投稿が作成されたときのイベント名（データは投稿） */
+    public static final String EVENT_CREATED = "post-created";
+
+    /** 投稿が更新されたときのイベント名（データは投稿） */
+    public static final String EVENT_UPDATED = "post-updated";
+
+    /** 投稿が削除されたときのイベント名（データは投稿のID） */
+    public static final String EVENT_DELETED = "post-deleted";
+
+    /** 取りこぼしたイベントを再送できないため、投稿一覧を取得し直すよう指示するイベント名 */
+    public static final String EVENT_RESET = "reset";
+
+    /** 切断されたクライアントが再接続するまでの時間 */
+    private static final Duration RECONNECT_TIME = Duration.ofSeconds(3);
+
+    private static final String METRIC_NAME = "posts.stream";
+
+    private final PostRepository postRepository;
+    private final ObjectMapper objectMapper;
+    private final int bufferSize;
+    private final int replaySize;
+    private final Duration timeout;
+    private final long sendTimeoutNanos;
+
+    /** イベントIDの接頭辞（再起動の前に配信したイベントIDを区別するため、起動ごとに変える） */
+    private final String bootId = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+
+    /** 配信用スレッドが処理する命令（配信、購読の開始、ハートビート） */
+    private final BlockingQueue<Runnable> commands = new LinkedBlockingQueue<>();
+
+    /** 再送用の直近のイベント（配信用スレッドのみが参照、変更する） */
+    private final ArrayDeque<StreamedEvent> history = new ArrayDeque<>();
+
+    /** 最後に配信したイベントの連番（配信用スレッドのみが参照、変更する） */
+    private long lastSequence;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final Thread dispatcher;
+    private final ThreadPoolExecutor senderExecutor;
+    private final Counter disconnectedCounter;
+    private final Counter stalledCounter;
+
+    /**
+     * 配信するイベント
+     *
+     * @param sequence イベントの連番（ハートビートの場合は0）
+     * @param data     送信する内容（JSONへの変換は配信用スレッドで1回だけ行う）
+     */
+    private record StreamedEvent(long sequence, Set<ResponseBodyEmitter.DataWithMediaType> data) {
+    }
+
+    /**
+     * コンストラクタ
+     *
+     * @param postRepository 投稿データへのアクセスを提供するリポジトリ
+     * @param objectMapper   配信する投稿をJSONに変換するObjectMapper
+     * @param bufferSize     購読者ごとの送信待ちのイベントの上限（超えた場合は切断する）
+     * @param replaySize     再接続時に再送できるよう保持する直近のイベントの数
+     * @param timeout        1回の接続の最大時間（過ぎるとクライアントが再接続する）
+     * @param senderThreads  購読者への送信を行うスレッド数
+     * @param sendTimeout    1回の送信の最大時間（過ぎても終わらない場合は切断する）
+     * @param meterRegistry  購読者数などを記録するレジストリ
+     */
+    public PostEventBroadcaster(PostRepository postRepository, ObjectMapper objectMapper,
+            @Value("${app.posts.stream.buffer-size}") int bufferSize,
+            @Value("${app.posts.stream.replay-size}") int replaySize,
+            @Value("${app.posts.stream.timeout}") Duration timeout,
+            @Value("${app.posts.stream.sender-threads}") int senderThreads,
+            @Value("${app.posts.stream.send-timeout}") Duration sendTimeout,
+            MeterRegistry meterRegistry) {
+        this.postRepository = postRepository;
+        this.objectMapper = objectMapper;
+        this.bufferSize = bufferSize;
+        this.replaySize = replaySize;
+        this.timeout = timeout;
+        this.sendTimeoutNanos = sendTimeout.toNanos();
+        this.senderExecutor = new ThreadPoolExecutor(senderThreads, senderThreads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), new CustomizableThreadFactory("post-stream-sender-"));
+
+        CustomizableThreadFactory dispatcherThreadFactory = new CustomizableThreadFactory("post-stream-dispatcher");
+        dispatcherThreadFactory.setDaemon(true);
+        this.dispatcher = dispatcherThreadFactory.newThread(this::dispatchLoop);
+        this.dispatcher.start();
+
+        this.disconnectedCounter = Counter.builder(METRIC_NAME + ".slow.disconnected")
+                .description("送信待ちのイベントが上限を超えたため切断した購読者の数")
+                .register(meterRegistry);
+        this.stalledCounter = Counter.builder(METRIC_NAME + ".stalled.disconnected")
+                .description("1回の送信が上限の時間を過ぎても終わらなかったため切断した購読者の数")
+                .register(meterRegistry);
+        Gauge.builder(METRIC_NAME + ".subscribers", subscribers, Set::size)
+                .description("投稿の変更を購読中のクライアントの数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 投稿の変更の購読を開始する
+     *
+     * @param lastEventId 再接続の場合、最後に受信したイベントのID（初回の接続の場合はnull）
+     * @return クライアントにイベントを送信するSseEmitter
+     */
+    public SseEmitter subscribe(String lastEventId) {
+        return subscribe(new SseEmitter(timeout.toMillis()), lastEventId);
+    }
+
+    /**
+     * 指定したSseEmitterで投稿の変更の購読を開始する
+     *
+     * @param emitter     クライアントにイベントを送信するSseEmitter
+     * @param lastEventId 再接続の場合、最後に受信したイベントのID（初回の接続の場合はnull）
+     * @return 指定したSseEmitter
+     */
+    SseEmitter subscribe(SseEmitter emitter, String lastEventId) {
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(error -> subscriber.close());
+
+        subscriber.enqueue(new StreamedEvent(0, SseEmitter.event().reconnectTime(RECONNECT_TIME.toMillis()).build()));
+        commands.add(() -> replay(subscriber, lastEventId));
+        return emitter;
+    }
+
+    /**
+     * 投稿の変更が確定したあとに、変更された投稿を購読者に配信する
+     * ※投稿はイベントを受け取ったスレッド（変更を行ったリクエストのスレッド）でまとめて取得し、配信用スレッドでは取得しない
+     *
+     * @param event 投稿の変更を通知するイベント
+     */
+    @TransactionalEventListener
+    public void onPostChanged(PostChangedEvent event) {
+        if (event.type() == PostChangedEvent.Type.DELETED) {
+            event.postIds().forEach(id -> commands.add(() -> publish(EVENT_DELETED, Map.of("id", id))));
+            return;
+        }
+        String name = event.type() == PostChangedEvent.Type.CREATED ? EVENT_CREATED : EVENT_UPDATED;
+        List<PostResponseDto> posts = postRepository.findPostResponseDtosByIdIn(event.postIds());
+        posts.forEach(post -> commands.add(() -> publish(name, post)));
+    }
+
+    /**
+     * 購読中のクライアントにハートビート（コメント行）を送信する
+     * 接続が途中のプロキシなどに切断されないようにし、切断済みのクライアントと送信が止まっているクライアントを検出する
+     */
+    @Scheduled(fixedDelayString = "${app.posts.stream.heartbeat-interval}")
+    public void heartbeat() {
+        commands.add(() -> {
+            StreamedEvent event = new StreamedEvent(0, SseEmitter.event().comment("heartbeat").build());
+            subscribers.forEach(subscriber -> subscriber.enqueue(event));
+        });
+    }
+
+    /**
+     * アプリケーションの終了時に配信を停止し、購読中のクライアントとの接続を閉じる
+     */
+    @Override
+    public void destroy() {
+        dispatcher.interrupt();
+        senderExecutor.shutdown();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    /**
+     * 配信用スレッドの処理（命令を順番に実行する）
+     */
+    private void dispatchLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                commands.take().run();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                logger.warn("投稿の変更の配信に失敗しました", e);
+            }
+        }
+    }
+
+    /**
+     * イベントを採番して履歴に追加し、すべての購読者に配信する（配信用スレッドで実行する）
+     */
+    private void publish(String name, Object data) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(data);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+        long sequence = ++lastSequence;
+        StreamedEvent event = new StreamedEvent(sequence, SseEmitter.event()
+                .id(bootId + "-" + sequence)
+                .name(name)
+                .data(json, MediaType.APPLICATION_JSON)
+                .build());
+
+        history.addLast(event);
+        if (history.size() > replaySize) {
+            history.removeFirst();
+        }
+        subscribers.forEach(subscriber -> subscriber.enqueue(event));
+    }
+
+    /**
+     * 再接続した購読者に取りこぼしたイベントを再送し、配信の対象に加える（配信用スレッドで実行する）
+     * 取りこぼしたイベントが履歴に残っていない場合（再起動した場合を含む）は、投稿一覧の取得し直しを指示する
+     */
+    private void replay(Subscriber subscriber, String lastEventId) {
+        if (lastEventId != null) {
+            long lastReceived = parseSequence(lastEventId);
+            boolean replayable = lastReceived >= 0 && lastReceived <= lastSequence
+                    && (history.isEmpty() ? lastReceived == lastSequence
+                            : history.peekFirst().sequence() <= lastReceived + 1);
+            if (replayable) {
+                history.stream()
+                        .filter(event -> event.sequence() > lastReceived)
+                        .forEach(subscriber::enqueue);
+            } else {
+                subscriber.enqueue(new StreamedEvent(0, SseEmitter.event()
+                        .id(bootId + "-" + lastSequence)
+                        .name(EVENT_RESET)
+                        .data("{}", MediaType.APPLICATION_JSON)
+                        .build()));
+            }
+        }
+        subscribers.add(subscriber);
+        // 配信の対象に加える前に切断された場合
+        if (subscriber.closed) {
+            subscribers.remove(subscriber);
+        }
+    }
+
+    /**
+     * イベントIDから連番を取り出す（この起動で配信したイベントのIDではない場合は-1）
+     */
+    private long parseSequence(String eventId) {
+        String prefix = bootId + "-";
+        if (!eventId.startsWith(prefix)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(eventId.substring(prefix.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 送信用のスレッド数を増減する（送信が止まっている購読者の分だけ一時的に増やす）
+     */
+    private void resizeSenderPool(int delta) {
+        synchronized (senderExecutor) {
+            int size = senderExecutor.getMaximumPoolSize() + delta;
+            // 最大のスレッド数は常に基本のスレッド数以上にする必要があるため、増やす場合と減らす場合で順番を変える
+            if (delta > 0) {
+                senderExecutor.setMaximumPoolSize(size);
+                senderExecutor.setCorePoolSize(size);
+            } else {
+                senderExecutor.setCorePoolSize(size);
+                senderExecutor.setMaximumPoolSize(size);
+            }
+        }
+    }
+
+    /**
+     * 購読者（1つの接続）
+     * 送信待ちのイベントがある間だけ送信用のスレッドプールで送信処理を実行し、同時に2つ以上の送信処理は実行しない
+     */
+    private final class Subscriber {
+
+        /** 送信中ではないことを表す送信の開始時刻 */
+        private static final long NOT_SENDING = Long.MIN_VALUE;
+
+        /** 送信が止まっているとして切断したことを表す送信の開始時刻 */
+        private static final long STALLED = Long.MAX_VALUE;
+
+        private final SseEmitter emitter;
+        private final BlockingQueue<StreamedEvent> queue = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private volatile boolean closed;
+
+        /** 送信中のイベントの送信の開始時刻（System.nanoTime()の値） */
+        private final AtomicLong sendStartedAt = new AtomicLong(NOT_SENDING);
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        /**
+         * イベントを送信待ちに追加する（送信待ちが上限を超えた場合、送信が止まっている場合は切断する）
+         */
+        private void enqueue(StreamedEvent event) {
+            if (closed || abortIfStalled()) {
+                return;
+            }
+            if (!queue.offer(event)) {
+                disconnectedCounter.increment();
+                close();
+                emitter.complete();
+                return;
+            }
+            scheduleSend();
+        }
+
+        private void scheduleSend() {
+            if (!sending.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                senderExecutor.execute(this::sendQueued);
+            } catch (RejectedExecutionException e) {
+                // アプリケーションの終了中
+                sending.set(false);
+                close();
+            }
+        }
+
+        /**
+         * 送信待ちのイベントをすべて送信する（送信用のスレッドで実行する）
+         */
+        private void sendQueued() {
+            try {
+                StreamedEvent event;
+                while (!closed && (event = queue.poll()) != null) {
+                    sendStartedAt.set(System.nanoTime());
+                    try {
+                        emitter.send(event.data());
+                    } finally {
+                        finishSend();
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                // クライアントが切断した場合（SseEmitterの完了の処理はコンテナから通知される）
+                close();
+            } finally {
+                sending.set(false);
+            }
+            // 送信処理の終了と同時に追加されたイベントを取り残さないよう、確認し直す
+            if (!closed && !queue.isEmpty()) {
+                scheduleSend();
+            }
+        }
+
+        /**
+         * 送信が上限の時間を過ぎても終わっていない場合に切断し、送信が戻るまでの間は送信用のスレッドを1つ追加する
+         * ※止まった書き込みは、コンテナの書き込みのタイムアウトまでSseEmitterのロックを保持したままになるため、
+         * ここではSseEmitterを完了させず、送信が戻ったあとに送信用のスレッドで完了させる（配信用スレッドを待たせないため）
+         *
+         * @return 送信が止まっているため切断した場合はtrue
+         */
+        private boolean abortIfStalled() {
+            long startedAt = sendStartedAt.get();
+            if (startedAt == NOT_SENDING || startedAt == STALLED || System.nanoTime() - startedAt < sendTimeoutNanos) {
+                return false;
+            }
+            // 判定の間に送信が終わった場合は切断しない
+            if (!sendStartedAt.compareAndSet(startedAt, STALLED)) {
+                return false;
+            }
+            stalledCounter.increment();
+            close();
+            resizeSenderPool(1);
+            return true;
+        }
+
+        /**
+         * 送信の終了を記録する（送信が止まっているとして切断済みの場合は、追加した送信用のスレッドを戻し、接続を閉じる）
+         */
+        private void finishSend() {
+            if (sendStartedAt.getAndSet(NOT_SENDING) == STALLED) {
+                resizeSenderPool(-1);
+                emitter.complete();
+            }
+        }
+
+        private void close() {
+            closed = true;
+            subscribers.remove(this);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.dog_crud_spring_boot.datasource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.dog_crud_spring_boot.event.PostChangedEvent;
+import com.example.dog_crud_spring_boot.security.LoginUser;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+
+/**
+ * {@link ReadWriteRoutingDataSource} の接続先の振り分けを確認するテスト
+ * ※プライマリとレプリカには、それぞれ別の組み込みデータベース（H2）を使用する
+ */
+class ReadWriteRoutingDataSourceTest {
+
+    private EmbeddedDatabase primary;
+    private EmbeddedDatabase replica;
+    private ReplicaReadPolicy policy;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate writeTransaction;
+    private TransactionTemplate readOnlyTransaction;
+
+    @BeforeEach
+    void setUp() {
+        primary = createDatabase("primary");
+        replica = createDatabase("replica");
+        policy = new ReplicaReadPolicy(replica, Duration.ofMinutes(1), "", Duration.ofSeconds(2),
+                new SimpleMeterRegistry());
+
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(
+                new ReadWriteRoutingDataSource(primary, replica, policy));
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        writeTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        primary.shutdown();
+        replica.shutdown();
+    }
+
+    @Test
+    void routesReadOnlyTransactionsToReplica() {
+        assertThat(readOnlyTransaction.execute(status -> currentDatabase())).isEqualTo("replica");
+        assertThat(writeTransaction.execute(status -> currentDatabase())).isEqualTo("primary");
+        assertThat(currentDatabase()).isEqualTo("primary");
+    }
+
+    @Test
+    void routesReadsOfRecentWriterToPrimary() {
+        login(1L);
+        writeTransaction.executeWithoutResult(
+                status -> policy.onPostChanged(PostChangedEvent.of(PostChangedEvent.Type.UPDATED, 1L)));
+        assertThat(readOnlyTransaction.execute(status -> currentDatabase())).isEqualTo("primary");
+
+        // 更新を行っていない別のユーザーはレプリカから読み取る
+        login(2L);
+        assertThat(readOnlyTransaction.execute(status -> currentDatabase())).isEqualTo("replica");
+    }
+
+    @Test
+    void routesAllReadsToPrimaryWhileReplicaIsLagging() {
+        ReplicaReadPolicy laggingPolicy = new ReplicaReadPolicy(replica, Duration.ofMinutes(1),
+                "SELECT 10", Duration.ofSeconds(2), new SimpleMeterRegistry());
+        assertThat(laggingPolicy.canReadFromReplica()).isTrue();
+
+        laggingPolicy.checkLag();
+        assertThat(laggingPolicy.canReadFromReplica()).isFalse();
+    }
+
+    private String currentDatabase() {
+        return jdbcTemplate.queryForObject("SELECT name FROM marker", String.class);
+    }
+
+    private static EmbeddedDatabase createDatabase(String name) {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .setName(name + System.nanoTime())
+                .build();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE marker (name VARCHAR(20))");
+        jdbcTemplate.update("INSERT INTO marker (name) VALUES (?)", name);
+        return database;
+    }
+
+    private static void login(Long userId) {
+        LoginUser user = new LoginUser(userId, "user" + userId + "@example.com", "user" + userId, null);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.dog_crud_spring_boot.datasource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.dog_crud_spring_boot.model.User;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.persistenceunit.PersistenceManagedTypes;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link ReplicaAwareJpaDialect} により、レプリカから読み取った結果が2次キャッシュ、クエリキャッシュに格納されないことを確認するテスト
+ * ※プライマリとレプリカには、それぞれ別の組み込みデータベース（H2）を使用し、レプリカの複製が遅れている状態を再現する
+ */
+class ReplicaAwareJpaDialectTest {
+
+    private EmbeddedDatabase primary;
+    private EmbeddedDatabase replica;
+    private EntityManagerFactory replicaEntityManagerFactory;
+    private EntityManagerFactory entityManagerFactory;
+    private EntityManager entityManager;
+    private Statistics statistics;
+    private TransactionTemplate writeTransaction;
+    private TransactionTemplate readOnlyTransaction;
+
+    @BeforeEach
+    void setUp() {
+        primary = createDatabase("primary");
+        replica = createDatabase("replica");
+        // レプリカのテーブルを作成する（複製が遅れている状態を作るため、レプリカへの書き込みにも使用する）
+        replicaEntityManagerFactory = createEntityManagerFactory(replica, new HibernateJpaDialect(), false);
+
+        ReplicaReadPolicy policy = new ReplicaReadPolicy(replica, Duration.ofMinutes(1), "", Duration.ofSeconds(2),
+                new SimpleMeterRegistry());
+        ReadWriteRoutingDataSource routingDataSource = new ReadWriteRoutingDataSource(primary, replica, policy);
+
+        entityManagerFactory = createEntityManagerFactory(new LazyConnectionDataSourceProxy(routingDataSource),
+                new ReplicaAwareJpaDialect(routingDataSource), true);
+        entityManager = SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory);
+        // 前のテストで格納されたキャッシュ（同じ名前のキャッシュを使用する）を破棄する
+        entityManagerFactory.getCache().evictAll();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        JpaTransactionManager transactionManager = new JpaTransactionManager(entityManagerFactory);
+        writeTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        // ※2次キャッシュを使用するEntityManagerFactoryは閉じない（閉じるとJCacheのCacheManagerが閉じられ、
+        // 同じCacheManagerを使用する他のテストのSpringのコンテキストが2次キャッシュを使用できなくなるため）
+        replicaEntityManagerFactory.close();
+        primary.shutdown();
+        replica.shutdown();
+    }
+
+    @Test
+    void cachedQueryOnReplicaDoesNotCacheStaleEmptyResult() {
+        // プライマリにのみ登録されたユーザー（レプリカにはまだ複製されていない）
+        writeTransaction.executeWithoutResult(status -> entityManager.persist(user("new", "new@example.com")));
+
+        statistics.clear();
+        assertThat(readOnlyTransaction.execute(status -> findByEmail("new@example.com"))).isEmpty();
+        assertThat(statistics.getQueryCachePutCount()).isZero();
+
+        // レプリカから読み取った「見つからない」という結果がキャッシュされていないため、プライマリから取得できること
+        assertThat(writeTransaction.execute(status -> findByEmail("new@example.com"))).hasSize(1);
+        assertThat(statistics.getQueryCachePutCount()).isEqualTo(1);
+
+        // プライマリから格納した結果は、レプリカから読み取るトランザクションでも使用されること
+        statistics.clear();
+        assertThat(readOnlyTransaction.execute(status -> findByEmail("new@example.com"))).hasSize(1);
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void entityLoadedFromReplicaIsNotPutIntoSecondLevelCache() {
+        // 同じユーザーをレプリカには更新前の名前で登録する（更新がまだ複製されていない状態）
+        EntityManager replicaEntityManager = replicaEntityManagerFactory.createEntityManager();
+        replicaEntityManager.getTransaction().begin();
+        replicaEntityManager.persist(user("old", "user@example.com"));
+        replicaEntityManager.getTransaction().commit();
+        replicaEntityManager.close();
+        Long userId = writeTransaction.execute(status -> {
+            User user = user("new", "user@example.com");
+            entityManager.persist(user);
+            return user.getId();
+        });
+        entityManagerFactory.getCache().evictAll();
+
+        statistics.clear();
+        assertThat(readOnlyTransaction.execute(status -> entityManager.find(User.class, userId).getUserName()))
+                .isEqualTo("old");
+        assertThat(statistics.getSecondLevelCachePutCount()).isZero();
+
+        assertThat(writeTransaction.execute(status -> entityManager.find(User.class, userId).getUserName()))
+                .isEqualTo("new");
+    }
+
+    private List<User> findByEmail(String email) {
+        return entityManager.createQuery("SELECT u FROM User u WHERE u.email = :email", User.class)
+                .setParameter("email", email)
+                .setHint(HibernateHints.HINT_CACHEABLE, true)
+                .getResultList();
+    }
+
+    /**
+     * ユーザーのテーブルのみを持つEntityManagerFactoryを作成する（起動時にテーブルを作成する）
+     * ※2次キャッシュは他のテストと混ざらないよう、このテスト専用の名前のキャッシュを使用する
+     */
+    private static EntityManagerFactory createEntityManagerFactory(DataSource dataSource,
+            HibernateJpaDialect jpaDialect, boolean useCache) {
+        HibernateJpaVendorAdapter vendorAdapter = new HibernateJpaVendorAdapter() {
+            @Override
+            public HibernateJpaDialect getJpaDialect() {
+                return jpaDialect;
+            }
+        };
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        properties.put("hibernate.hbm2ddl.auto", "create");
+        properties.put("hibernate.generate_statistics", true);
+        properties.put("hibernate.cache.use_second_level_cache", useCache);
+        properties.put("hibernate.cache.use_query_cache", useCache);
+        if (useCache) {
+            properties.put("hibernate.cache.region.factory_class", "jcache");
+            properties.put("hibernate.cache.region_prefix", ReplicaAwareJpaDialectTest.class.getSimpleName());
+            properties.put("hibernate.javax.cache.provider",
+                    "com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider");
+            properties.put("hibernate.javax.cache.missing_cache_strategy", "create");
+        }
+        properties.put("jakarta.persistence.sharedCache.mode", "ENABLE_SELECTIVE");
+        properties.put("jakarta.persistence.validation.mode", "none");
+
+        LocalContainerEntityManagerFactoryBean factoryBean = new LocalContainerEntityManagerFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setJpaVendorAdapter(vendorAdapter);
+        factoryBean.setManagedTypes(PersistenceManagedTypes.of(User.class.getName()));
+        factoryBean.setJpaPropertyMap(properties);
+        factoryBean.afterPropertiesSet();
+        return factoryBean.getObject();
+    }
+
+    private static EmbeddedDatabase createDatabase(String name) {
+        return new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .setName(name + System.nanoTime())
+                .build();
+    }
+
+    private static User user(String userName, String email) {
+        User user = new User();
+        user.setUserName(userName);
+        user.setEmail(email);
+        user.setPassword("password");
+        return user;
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.dog_crud_spring_boot.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.dog_crud_spring_boot.dto.PostResponseDto;
+import com.example.dog_crud_spring_boot.model.Age;
+import com.example.dog_crud_spring_boot.model.Post;
+import com.example.dog_crud_spring_boot.model.User;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * {@link PostRepository} の読み取りクエリが発行するSQLの回数を確認するテスト
+ * ※組み込みデータベース（H2）を使用する
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        // テストデータの作成を簡単にするため、保存時のBean Validationは行わない
+        "spring.jpa.properties.jakarta.persistence.validation.mode=none" })
+class PostRepositoryTest {
+
+    private static final int POST_COUNT = 1000;
+    private static final int USER_COUNT = 100;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        List<Age> ages = List.of(new Age("子犬", 1L), new Age("成犬", 2L), new Age("老犬", 3L));
+        ages.forEach(entityManager::persist);
+
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < USER_COUNT; i++) {
+            User user = new User();
+            user.setUserName("user" + i);
+            user.setEmail("user" + i + "@example.com");
+            user.setPassword("password");
+            entityManager.persist(user);
+            users.add(user);
+        }
+
+        for (int i = 0; i < POST_COUNT; i++) {
+            Post post = new Post();
+            post.setTitle("title" + i);
+            post.setContent("content" + i);
+            post.setImageUrl("https://example.com/" + i + ".jpg");
+            post.setUser(users.get(i % USER_COUNT));
+            post.setAge(ages.get(i % ages.size()));
+            entityManager.persist(post);
+        }
+
+        // 永続化コンテキストに残ったエンティティが使われないよう、DBへ反映してから破棄する
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void findAllPostResponseDtosIssuesSingleStatement() {
+        List<PostResponseDto> posts = postRepository.findAllPostResponseDtos();
+
+        assertThat(posts).hasSize(POST_COUNT);
+        assertThat(posts).allSatisfy(post -> {
+            assertThat(post.getUserEmail()).isNotNull();
+            assertThat(post.getAgeValue()).isNotNull();
+        });
+        // ユーザーや年齢の数に関係なく、1回のクエリで取得できていること
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void userPostsKeysetPagingReturnsEachPostOnce() {
+        Long userId = postRepository.findAllPostResponseDtos().get(0).getUserId();
+        int pageSize = 3;
+
+        List<PostResponseDto> collected = new ArrayList<>();
+        List<PostResponseDto> page = postRepository.findUserPostsFirstPage(userId, PageRequest.ofSize(pageSize));
+        while (!page.isEmpty()) {
+            collected.addAll(page);
+            PostResponseDto last = page.get(page.size() - 1);
+            page = postRepository.findUserPostsPageAfter(userId, last.getCreatedAt(), last.getId(),
+                    PageRequest.ofSize(pageSize));
+        }
+
+        // 作成日時が同じ投稿があっても、重複や漏れなく新しい順に取得できていること
+        assertThat(collected).hasSize(POST_COUNT / USER_COUNT);
+        assertThat(collected).allSatisfy(post -> assertThat(post.getUserId()).isEqualTo(userId));
+        assertThat(collected).extracting(PostResponseDto::getId).doesNotHaveDuplicates();
+        assertThat(collected).isSortedAccordingTo(Comparator.comparing(PostResponseDto::getCreatedAt)
+                .thenComparing(PostResponseDto::getId).reversed());
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.dog_crud_spring_boot.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.dog_crud_spring_boot.dto.PostRequestDto;
+import com.example.dog_crud_spring_boot.model.Age;
+import com.example.dog_crud_spring_boot.model.Post;
+import com.example.dog_crud_spring_boot.model.PostCollectionVersion;
+import com.example.dog_crud_spring_boot.model.User;
+import com.example.dog_crud_spring_boot.security.LoginUser;
+import com.example.dog_crud_spring_boot.service.AgeCache;
+import com.example.dog_crud_spring_boot.service.PostCollectionVersionUpdater;
+import com.example.dog_crud_spring_boot.service.PostService;
+
+import jakarta.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * 投稿、ユーザー、年齢が2次キャッシュから取得され、SQLが発行されないことを確認するテスト
+ * ※2次キャッシュへの格納はトランザクションのコミット時に行われるため、テストのトランザクションは使用せず、
+ * 操作ごとにトランザクションをコミットする
+ * ※投稿の更新、削除は {@link PostService} を通して行い、作成者の確認、投稿一覧のバージョンの更新を含めて発行されるSQLを確認する
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        // テストデータの作成を簡単にするため、保存時のBean Validationは行わない
+        "spring.jpa.properties.jakarta.persistence.validation.mode=none" })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(PostCollectionVersionUpdater.class)
+class PostSecondLevelCacheTest {
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AgeRepository ageRepository;
+
+    @Autowired
+    private PostCollectionVersionRepository postCollectionVersionRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private Statistics statistics;
+    private PostService postService;
+    private Authentication authentication;
+    private Long ageId;
+    private Long postId;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        User user = new User();
+        user.setUserName("user");
+        user.setEmail("user@example.com");
+        user.setPassword("password");
+        postId = transactionTemplate.execute(status -> {
+            Age age = ageRepository.save(new Age("成犬", 2L));
+            ageId = age.getId();
+            userRepository.save(user);
+            // 起動時（DataInitializer）に作成される投稿一覧のバージョンの行を作成しておく
+            postCollectionVersionRepository.save(new PostCollectionVersion(0));
+
+            Post post = new Post();
+            post.setTitle("title");
+            post.setContent("content");
+            post.setImageUrl("https://example.com/1.jpg");
+            post.setUser(user);
+            post.setAge(age);
+            return postRepository.save(post).getId();
+        });
+        authentication = new UsernamePasswordAuthenticationToken(LoginUser.from(user), null);
+
+        AgeCache ageCache = new AgeCache(ageRepository);
+        ageCache.refresh();
+        // 全文検索は使用しないため、インデックスは指定しない
+        postService = new PostService(postRepository, postCollectionVersionRepository, userRepository, ageCache,
+                eventPublisher, null, 20, 100);
+
+        // データの作成時に格納されたキャッシュを破棄し、DBから読み込むところから確認する
+        entityManagerFactory.getCache().evictAll();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionTemplate.executeWithoutResult(status -> {
+            postRepository.deleteAllInBatch();
+            postCollectionVersionRepository.deleteAllInBatch();
+            userRepository.deleteAllInBatch();
+            ageRepository.deleteAllInBatch();
+        });
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    void secondReadOfPostWithUserAndAgeIssuesNoStatement() {
+        readPostWithUserAndAge();
+        long statementsOfFirstRead = statistics.getPrepareStatementCount();
+
+        statistics.clear();
+        readPostWithUserAndAge();
+
+        // 1回目は投稿、ユーザー、年齢をDBから読み込み、2回目はすべて2次キャッシュから取得されること
+        assertThat(statementsOfFirstRead).isEqualTo(3);
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(3);
+    }
+
+    @Test
+    void updatedPostIsReadFromCacheWithNewValue() {
+        readPostWithUserAndAge();
+        transactionTemplate.executeWithoutResult(
+                status -> postRepository.findById(postId).orElseThrow().setTitle("updated"));
+
+        statistics.clear();
+        String title = transactionTemplate.execute(
+                status -> postRepository.findById(postId).orElseThrow().getTitle());
+
+        // 更新後の値がキャッシュされ、DBにアクセスせずに最新の値が取得できること
+        assertThat(title).isEqualTo("updated");
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    void ownershipCheckedUpdateOfCachedPostIssuesOnlyUpdateStatements() {
+        readPostWithUserAndAge();
+
+        statistics.clear();
+        transactionTemplate.executeWithoutResult(
+                status -> postService.updatePost(postId, postRequest("updated"), null, authentication));
+
+        // 作成者の確認、年齢の取得ではSQLを発行せず、発行されるSQLは投稿のUPDATE文と投稿一覧のバージョンのUPDATE文のみであること
+        // （作成者を読み込んだ場合はSELECT文が増える）
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getEntityUpdateCount()).isEqualTo(1);
+        assertThat(postCollectionVersionRepository.findVersion()).contains(1L);
+    }
+
+    @Test
+    void ownershipCheckedUpdateOfUncachedPostAddsOnlySelectOfPost() {
+        readPostWithUserAndAge();
+        entityManagerFactory.getCache().evict(Post.class);
+
+        statistics.clear();
+        transactionTemplate.executeWithoutResult(
+                status -> postService.updatePost(postId, postRequest("updated"), null, authentication));
+
+        // 投稿が2次キャッシュにない場合は、投稿のSELECT文が1回増えるのみであること（作成者は2次キャッシュから取得する）
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+        assertThat(statistics.getEntityUpdateCount()).isEqualTo(1);
+    }
+
+    @Test
+    void softDeleteOfCachedPostIssuesOnlyUpdateStatements() {
+        readPostWithUserAndAge();
+
+        statistics.clear();
+        transactionTemplate.executeWithoutResult(status -> postService.deletePost(postId, authentication));
+
+        // 投稿のUPDATE文（削除日時の設定）と投稿一覧のバージョンのUPDATE文のみであること
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getEntityUpdateCount()).isEqualTo(1);
+    }
+
+    /**
+     * 投稿とその作成者、年齢を1つのトランザクション（セッション）で読み込む
+     */
+    private void readPostWithUserAndAge() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Post post = postRepository.findById(postId).orElseThrow();
+            assertThat(post.getUser().getEmail()).isEqualTo("user@example.com");
+            assertThat(post.getAge().getValue()).isEqualTo("成犬");
+        });
+    }
+
+    private PostRequestDto postRequest(String title) {
+        PostRequestDto request = new PostRequestDto();
+        request.setTitle(title);
+        request.setContent("content");
+        request.setAgeId(ageId);
+        request.setImageUrl("https://example.com/1.jpg");
+        return request;
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.dog_crud_spring_boot.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.dog_crud_spring_boot.config.ConcurrencyLimitProperties;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link AdaptiveConcurrencyLimit} の優先度ごとの受け付けと、処理時間による上限の増減を確認するテスト
+ */
+class AdaptiveConcurrencyLimitTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.SECONDS.toNanos(1);
+
+    private final AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(
+            new ConcurrencyLimitProperties.Limit(10, 2, 20, Duration.ofMillis(100), 0.5), 0.2, 0.5);
+
+    @Test
+    void admitsRequestsUpToThresholdOfEachPriority() {
+        assertThat(acquireUntilRejected(AdaptiveConcurrencyLimit.Priority.LOW)).isEqualTo(5);
+        assertThat(acquireUntilRejected(AdaptiveConcurrencyLimit.Priority.NORMAL)).isEqualTo(5);
+        // 上限（10件）に達していても、優先するリクエストは2割（2件）まで受け付けること
+        assertThat(acquireUntilRejected(AdaptiveConcurrencyLimit.Priority.HIGH)).isEqualTo(2);
+        assertThat(limit.getInflight()).isEqualTo(12);
+    }
+
+    @Test
+    void decreasesLimitOnSlowResponseAndIncreasesOnFastResponse() {
+        limit.tryAcquire(AdaptiveConcurrencyLimit.Priority.NORMAL);
+        limit.release(SLOW, false);
+        assertThat(limit.getLimit()).isEqualTo(5);
+
+        // 上限の半分以上が使われている状態で速く終わった場合のみ、上限を1増やすこと
+        for (int i = 0; i < 3; i++) {
+            limit.tryAcquire(AdaptiveConcurrencyLimit.Priority.NORMAL);
+        }
+        limit.release(FAST, false);
+        assertThat(limit.getLimit()).isEqualTo(6);
+        limit.release(FAST, false);
+        limit.release(FAST, false);
+        assertThat(limit.getLimit()).isEqualTo(6);
+        assertThat(limit.getInflight()).isZero();
+    }
+
+    private int acquireUntilRejected(AdaptiveConcurrencyLimit.Priority priority) {
+        int acquired = 0;
+        while (limit.tryAcquire(priority)) {
+            acquired++;
+        }
+        return acquired;
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.dog_crud_spring_boot.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.dog_crud_spring_boot.config.ConcurrencyLimitProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * {@link ConcurrencyLimitFilter} が、時間がかかることが前提のパスと、処理時間が混雑の度合いを表さないレスポンスを
+ * 上限の調整に反映しないことを確認するテスト
+ */
+class ConcurrencyLimitFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    /** ゲージは上限を弱参照で保持するため、テストの間はフィールドで参照しておく */
+    private ConcurrencyLimitFilter filter;
+
+    @Test
+    void slowResponseOfLongRunningPathDoesNotLowerLimit() throws Exception {
+        // 処理時間の閾値を0にし、すべてのリクエストを遅かったとみなす
+        filter = createFilter(Duration.ZERO);
+
+        send("POST", "/api/posts/bulk", HttpStatus.OK);
+        send("GET", "/api/posts/export", HttpStatus.OK);
+        assertThat(limitOf("write")).isEqualTo(2);
+        assertThat(limitOf("read")).isEqualTo(2);
+
+        send("POST", "/api/posts", HttpStatus.CREATED);
+        assertThat(limitOf("write")).isEqualTo(1);
+        assertThat(inflightOf("write")).isZero();
+    }
+
+    @Test
+    void rateLimitedAndNotModifiedResponsesDoNotRaiseLimit() throws Exception {
+        filter = createFilter(Duration.ofMinutes(1));
+
+        send("GET", "/api/posts/feed", HttpStatus.TOO_MANY_REQUESTS);
+        send("GET", "/api/posts/feed", HttpStatus.NOT_MODIFIED);
+        assertThat(limitOf("read")).isEqualTo(2);
+        assertThat(inflightOf("read")).isZero();
+
+        // 速く処理できた場合は上限を1増やすこと
+        send("GET", "/api/posts/feed", HttpStatus.OK);
+        assertThat(limitOf("read")).isEqualTo(3);
+    }
+
+    private ConcurrencyLimitFilter createFilter(Duration latencyThreshold) {
+        ConcurrencyLimitProperties.Limit limit = new ConcurrencyLimitProperties.Limit(2, 1, 10, latencyThreshold, 0.5);
+        ConcurrencyLimitProperties properties = new ConcurrencyLimitProperties(true, limit, limit, List.of("/api/**"),
+                List.of(), List.of(), List.of("/api/posts/export", "/api/posts/bulk"),
+                List.of("/api/posts/export", "/api/posts/bulk"), 0.25, 1.0);
+        return new ConcurrencyLimitFilter(properties, new ObjectMapper(), meterRegistry);
+    }
+
+    private void send(String method, String path, HttpStatus status)
+            throws Exception {
+        filter.doFilter(new MockHttpServletRequest(method, path), new MockHttpServletResponse(),
+                (request, response) -> ((HttpServletResponse) response).setStatus(status.value()));
+    }
+
+    private double limitOf(String type) {
+        return meterRegistry.get("http.server.concurrency.limit").tag("type", type).gauge().value();
+    }
+
+    private double inflightOf(String type) {
+        return meterRegistry.get("http.server.concurrency.inflight").tag("type", type).gauge().value();
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.dog_crud_spring_boot.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.dog_crud_spring_boot.config.RateLimitProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * {@link RateLimitFilter} がルールごと、利用者ごとにリクエスト数を制限することを確認するテスト
+ */
+class RateLimitFilterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        RateLimitProperties properties = new RateLimitProperties(true, 1000, Duration.ofMinutes(10), List.of(
+                new RateLimitProperties.Rule("login", "POST", "/login", 2, Duration.ofMinutes(1))));
+        filter = new RateLimitFilter(properties, new ObjectMapper(), meterRegistry);
+    }
+
+    @Test
+    void rejectsRequestsOverCapacityWithRetryAfter() throws Exception {
+        assertThat(send("POST", "/login", "10.0.0.1").getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(send("POST", "/login", "10.0.0.1").getStatus()).isEqualTo(HttpStatus.OK.value());
+
+        MockHttpServletResponse rejected = send("POST", "/login", "10.0.0.1");
+        assertThat(rejected.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+        // 1回分の間隔（1分 ÷ 2回 = 30秒）が過ぎると受け付けられるようになること
+        assertThat(rejected.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("30");
+        assertThat(meterRegistry.get("http.server.requests.rate.limited").tag("rule", "login").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void limitsEachClientAndRuleSeparately() throws Exception {
+        send("POST", "/login", "10.0.0.1");
+        send("POST", "/login", "10.0.0.1");
+
+        // 別のIPアドレス、ルールに一致しないリクエストは制限されないこと
+        assertThat(send("POST", "/login", "10.0.0.2").getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(send("GET", "/login", "10.0.0.1").getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(send("POST", "/api/posts", "10.0.0.1").getStatus()).isEqualTo(HttpStatus.OK.value());
+    }
+
+    private MockHttpServletResponse send(String method, String path, String remoteAddr) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        request.setRemoteAddr(remoteAddr);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
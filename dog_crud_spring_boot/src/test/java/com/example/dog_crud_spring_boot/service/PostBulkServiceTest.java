@@ -0,0 +1,229 @@
+package com.example.dog_crud_spring_boot.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.dog_crud_spring_boot.dto.PostBulkItemResultDto;
+import com.example.dog_crud_spring_boot.dto.PostBulkResponseDto;
+import com.example.dog_crud_spring_boot.dto.PostBulkUpdateRequestDto;
+import com.example.dog_crud_spring_boot.dto.PostRequestDto;
+import com.example.dog_crud_spring_boot.event.PostChangedEvent;
+import com.example.dog_crud_spring_boot.model.Age;
+import com.example.dog_crud_spring_boot.model.Post;
+import com.example.dog_crud_spring_boot.model.User;
+import com.example.dog_crud_spring_boot.repository.AgeRepository;
+import com.example.dog_crud_spring_boot.repository.PostRepository;
+import com.example.dog_crud_spring_boot.repository.UserRepository;
+import com.example.dog_crud_spring_boot.security.LoginUser;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.validation.Validation;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.jdbc.JdbcTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link PostBulkService} の1件ごとの処理結果と、チャンクごとのトランザクションの結果を確認するテスト
+ * ※チャンクごとにトランザクションをコミットするため、テストのトランザクションは使用しない
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        // テストデータの作成を簡単にするため、保存時のBean Validationは行わない
+        "spring.jpa.properties.jakarta.persistence.validation.mode=none" })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PostBulkServiceTest {
+
+    private static final int CHUNK_SIZE = 2;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AgeRepository ageRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionTemplate transactionTemplate;
+
+    /** 発行されたイベント */
+    private final List<PostChangedEvent> events = new ArrayList<>();
+
+    /** イベントの発行時に失敗させるチャンクの番号（1始まり、0の場合は失敗させない） */
+    private int failingChunk;
+
+    /** イベントを発行しようとしたチャンクの数 */
+    private int publishingChunks;
+
+    private PostBulkService postBulkService;
+    private Age age;
+    private User owner;
+    private User otherUser;
+    private Authentication authentication;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(status -> {
+            age = ageRepository.save(new Age("成犬", 2L));
+            owner = userRepository.save(user("owner"));
+            otherUser = userRepository.save(user("other"));
+        });
+        authentication = new UsernamePasswordAuthenticationToken(LoginUser.from(owner), null);
+
+        AgeCache ageCache = new AgeCache(ageRepository);
+        ageCache.refresh();
+        postBulkService = new PostBulkService(postRepository, userRepository, ageCache, event -> {
+            if (++publishingChunks == failingChunk) {
+                // チャンクの処理中にDBへの反映が失敗した場合と同様に、トランザクションをロールバックさせる
+                throw new DataAccessResourceFailureException("failed");
+            }
+            events.add((PostChangedEvent) event);
+        }, Validation.buildDefaultValidatorFactory().getValidator(), transactionManager, CHUNK_SIZE, 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        JdbcTestUtils.deleteFromTables(jdbcTemplate, "posts", "users", "ages");
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    void updateReportsEachFailureWithoutFailingOthers() {
+        Post own = createPost(owner, "own");
+        Post stale = createPost(owner, "stale");
+        Post others = createPost(otherUser, "others");
+
+        PostRequestDto blankTitle = postRequest("");
+        PostBulkResponseDto response = postBulkService.updatePosts(List.of(
+                updateRequest(own.getId(), own.getVersion(), postRequest("updated")),
+                updateRequest(others.getId(), null, postRequest("updated")),
+                updateRequest(Long.MAX_VALUE, null, postRequest("updated")),
+                updateRequest(stale.getId(), stale.getVersion() + 1, postRequest("updated")),
+                updateRequest(own.getId() + 1000, null, blankTitle)), authentication);
+
+        assertThat(response.getResults()).extracting(PostBulkItemResultDto::getStatus)
+                .containsExactly(200, 403, 404, 412, 400);
+        assertThat(response.getSucceeded()).isEqualTo(1);
+        assertThat(response.getFailed()).isEqualTo(4);
+        assertThat(titleOf(own.getId())).isEqualTo("updated");
+        assertThat(titleOf(others.getId())).isEqualTo("others");
+        assertThat(titleOf(stale.getId())).isEqualTo("stale");
+    }
+
+    @Test
+    void updateRejectsEveryItemWithRepeatedId() {
+        Post repeated = createPost(owner, "repeated");
+        Post single = createPost(owner, "single");
+
+        PostBulkResponseDto response = postBulkService.updatePosts(List.of(
+                updateRequest(repeated.getId(), repeated.getVersion(), postRequest("first")),
+                updateRequest(repeated.getId(), repeated.getVersion(), postRequest("second")),
+                updateRequest(single.getId(), single.getVersion(), postRequest("updated"))), authentication);
+
+        // 同じ投稿への変更は、どちらが反映されたかが分からなくならないよう、いずれも反映しないこと
+        assertThat(response.getResults()).extracting(PostBulkItemResultDto::getStatus)
+                .containsExactly(400, 400, 200);
+        assertThat(titleOf(repeated.getId())).isEqualTo("repeated");
+        assertThat(titleOf(single.getId())).isEqualTo("updated");
+    }
+
+    @Test
+    void deleteRejectsEveryItemWithRepeatedId() {
+        Post repeated = createPost(owner, "repeated");
+        Post single = createPost(owner, "single");
+
+        PostBulkResponseDto response = postBulkService.deletePosts(
+                List.of(repeated.getId(), single.getId(), repeated.getId()), authentication);
+
+        assertThat(response.getResults()).extracting(PostBulkItemResultDto::getStatus)
+                .containsExactly(400, 200, 400);
+        assertThat(isLive(repeated.getId())).isTrue();
+        assertThat(isLive(single.getId())).isFalse();
+    }
+
+    @Test
+    void failedChunkIsRolledBackAndReportedWhileOtherChunksAreSaved() {
+        failingChunk = 2;
+        List<PostRequestDto> requests = List.of(postRequest("a"), postRequest("b"), postRequest("c"),
+                postRequest("d"), postRequest("e"));
+
+        PostBulkResponseDto response = postBulkService.createPosts(requests, authentication);
+
+        // 2つ目のチャンク（3件目、4件目）のみがロールバックされ、そのチャンク内のすべてが失敗となること
+        assertThat(response.getResults()).extracting(PostBulkItemResultDto::getStatus)
+                .containsExactly(201, 201, 500, 500, 201);
+        assertThat(response.getResults().get(2).getId()).isNull();
+        assertThat(events).hasSize(2);
+        assertThat(postRepository.count()).isEqualTo(3);
+    }
+
+    private Post createPost(User user, String title) {
+        return transactionTemplate.execute(status -> {
+            Post post = new Post();
+            post.setTitle(title);
+            post.setContent("content");
+            post.setImageUrl("https://example.com/1.jpg");
+            post.setUser(user);
+            post.setAge(age);
+            return postRepository.save(post);
+        });
+    }
+
+    private String titleOf(Long id) {
+        return transactionTemplate.execute(status -> postRepository.findById(id).orElseThrow().getTitle());
+    }
+
+    private boolean isLive(Long id) {
+        return transactionTemplate.execute(
+                status -> postRepository.findById(id).filter(post -> post.getDeletedAt() == null).isPresent());
+    }
+
+    private PostRequestDto postRequest(String title) {
+        PostRequestDto request = new PostRequestDto();
+        request.setTitle(title);
+        request.setContent("content");
+        request.setAgeId(age.getId());
+        request.setImageUrl("https://example.com/2.jpg");
+        return request;
+    }
+
+    private static PostBulkUpdateRequestDto updateRequest(Long id, Long version, PostRequestDto post) {
+        PostBulkUpdateRequestDto request = new PostBulkUpdateRequestDto();
+        request.setId(id);
+        request.setVersion(version);
+        request.setPost(post);
+        return request;
+    }
+
+    private static User user(String name) {
+        User user = new User();
+        user.setUserName(name);
+        user.setEmail(name + "@example.com");
+        user.setPassword("password");
+        return user;
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.dog_crud_spring_boot.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.dog_crud_spring_boot.config.DataInitializer;
+import com.example.dog_crud_spring_boot.event.PostChangedEvent;
+import com.example.dog_crud_spring_boot.repository.PostCollectionVersionRepository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 起動時に投稿一覧のバージョンの行が作成され、最初の変更が同時に行われても両方のトランザクションがコミットされることを確認するテスト
+ * ※2つのトランザクションを別々のスレッドでコミットするため、テストのトランザクションは使用しない
+ */
+@DataJpaTest(properties = "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ DataInitializer.class, PostCollectionVersionUpdater.class })
+class PostCollectionVersionUpdaterTest {
+
+    @Autowired
+    private PostCollectionVersionRepository postCollectionVersionRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void concurrentFirstChangesBothCommitAndAdvanceVersion() throws Exception {
+        // 起動時に行が作成されていること
+        long initialVersion = postCollectionVersionRepository.findVersion().orElseThrow();
+
+        CyclicBarrier barrier = new CyclicBarrier(2);
+        CompletableFuture<Void> first = CompletableFuture.runAsync(() -> changePost(barrier, 1L));
+        CompletableFuture<Void> second = CompletableFuture.runAsync(() -> changePost(barrier, 2L));
+
+        // 2つのトランザクションがいずれも失敗せずにコミットされ、バージョンが2つ進むこと
+        CompletableFuture.allOf(first, second).get(30, TimeUnit.SECONDS);
+        assertThat(postCollectionVersionRepository.findVersion()).contains(initialVersion + 2);
+    }
+
+    /**
+     * 投稿の変更を通知し、もう一方のトランザクションも開始されるのを待ってからコミットする
+     */
+    private void changePost(CyclicBarrier barrier, Long postId) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            eventPublisher.publishEvent(PostChangedEvent.of(PostChangedEvent.Type.UPDATED, postId));
+            try {
+                barrier.await(10, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.dog_crud_spring_boot.stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link PostEventBroadcaster} で書き込みが止まった購読者が切断され、他の購読者への送信が続くことを確認するテスト
+ * ※送信用のスレッドを1つにし、書き込みが止まった購読者がそのスレッドを占有している状態を再現する
+ */
+class PostEventBroadcasterTest {
+
+    private static final Duration SEND_TIMEOUT = Duration.ofMillis(100);
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final PostEventBroadcaster broadcaster = new PostEventBroadcaster(null, new ObjectMapper(), 16, 16,
+            Duration.ofMinutes(1), 1, SEND_TIMEOUT, meterRegistry);
+
+    /** 書き込みが止まっている購読者の送信を再開させるラッチ */
+    private final CountDownLatch unblock = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        unblock.countDown();
+        broadcaster.destroy();
+    }
+
+    @Test
+    void stalledSubscriberIsDisconnectedWithoutStarvingOthers() throws Exception {
+        BlockedEmitter blocked = new BlockedEmitter();
+        broadcaster.subscribe(blocked, null);
+        assertThat(blocked.sendStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // 送信用のスレッドは書き込みが止まった購読者が占有しているため、この購読者への送信は待たされる
+        RecordingEmitter healthy = new RecordingEmitter(2);
+        broadcaster.subscribe(healthy, null);
+        Thread.sleep(SEND_TIMEOUT.toMillis() * 2);
+
+        broadcaster.heartbeat();
+
+        // 再接続の間隔の指定とハートビートが、書き込みが止まった購読者を待たずに送信されること
+        assertThat(healthy.received.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(meterRegistry.counter("posts.stream.stalled.disconnected").count()).isEqualTo(1);
+
+        // 止まっていた書き込みが戻ったあとに接続を閉じ、以降のイベントは送信しないこと
+        unblock.countDown();
+        assertThat(blocked.completed.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(blocked.sends.get()).isEqualTo(1);
+    }
+
+    /**
+     * 書き込みが止まっているクライアントへの接続（最初の送信がラッチの解除まで戻らない）
+     */
+    private final class BlockedEmitter extends SseEmitter {
+
+        private final CountDownLatch sendStarted = new CountDownLatch(1);
+        private final CountDownLatch completed = new CountDownLatch(1);
+        private final AtomicInteger sends = new AtomicInteger();
+
+        @Override
+        public void send(Set<DataWithMediaType> items) throws IOException {
+            sends.incrementAndGet();
+            sendStarted.countDown();
+            try {
+                unblock.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void complete() {
+            completed.countDown();
+            super.complete();
+        }
+    }
+
+    /**
+     * 送信された回数を記録する接続
+     */
+    private static final class RecordingEmitter extends SseEmitter {
+
+        private final CountDownLatch received;
+
+        private RecordingEmitter(int expected) {
+            this.received = new CountDownLatch(expected);
+        }
+
+        @Override
+        public void send(Set<DataWithMediaType> items) {
+            received.countDown();
+        }
+    }
+}